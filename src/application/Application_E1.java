@@ -641,7 +641,7 @@ public class Application_E1 {
 		String totalPrice = fmtPrice(totals[0], 1);
 		String totalVAT = fmtPrice(totals[1], 1);
 		//return orderTable
-		return process(orderTable, orders, s -> s.sorted((a,b) -> Long.compare(b.bla(), a.bla())),ff)
+		return process(orderTable, orders, s -> s.sorted((a,b) -> Long.compare(b.getTotalValue(), a.getTotalValue())),ff)
 			.row( "@ >        |   |", "", "", "", "", "Gesamt:", totalVAT, totalPrice)
 			.line("@          +=+=+");
 	}
@@ -49,12 +49,10 @@ public class Application_F2 {
 			System.out.println("(" + factory.ordersCount() + ") Article objects built.");
 			System.out.println("(" + factory.articlesCount() + ") Order objects built.");
 
-			StringBuffer sb = new StringBuffer();
-			//
 			Printer printer = ioc.getPrinter();
 			//
-			TablePrinter orderTable =
-				printer.createTablePrinter(sb, builder -> builder
+			TablePrinter orderTable =	// streaming table writes rows directly to System.out
+				printer.createTablePrinter(System.out, builder -> builder
 					// build table columns with width and alignment (R: right aligned)
 					.column("|",  11)	// "Bestell-ID"
 					.column("|",  28)	// "Bestellungen", descriptions
@@ -75,7 +73,8 @@ public class Application_F2 {
 				//
 				printer.printOrders(orderTable, factory.getOrders());
 				//
-				System.out.println(sb);
+				orderTable.flush();		// write pending rows
+				System.out.println();
 			}
 		}
 	}
@@ -2,6 +2,7 @@ package datamodel;
 
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class of entity type <i>Article</i>.
@@ -39,6 +40,24 @@ public class Article {
      */
     private TAX tax;
 
+    /**
+     * Listener notified about attribute changes, may be null.
+     */
+    private ChangeListener listener;
+
+    /**
+     * Version of prices and tax rates of all articles, incremented with every
+     * change to any article.
+     */
+    private static final AtomicLong pricingVersion = new AtomicLong();
+
+    /**
+     * Version of the last change to price or tax rate of this article, orders
+     * only recalculate totals when one of their articles has changed. Is
+     * {@code Long.MAX_VALUE} while a change is in progress.
+     */
+    private volatile long pricedVersion = 0L;
+
     /**
      * Default constructor.
      */
@@ -88,10 +107,24 @@ public class Article {
     	if(id == null || this.id =="") {
     		return this;
     	}
+    	String previousId = this.id;
         this.id = id;
+        if(listener != null && ! id.equals(previousId)) {
+        	listener.idChanged(this, previousId);
+        }
         return this;
     }
 
+    /**
+     * ChangeListener setter, listener is notified about attribute changes.
+     * @param listener listener to notify, null removes the listener.
+     * @return chainable self-reference.
+     */
+    public Article setChangeListener(ChangeListener listener) {
+    	this.listener = listener;
+    	return this;
+    }
+
     /**
      * Description getter.
      * @return descriptive text for article
@@ -111,6 +144,9 @@ public class Article {
         	throw new IllegalArgumentException("empty");
         }
         this.description = description;
+        if(listener != null) {
+        	listener.descriptionChanged(this);
+        }
         return this;
     }
 
@@ -129,9 +165,14 @@ public class Article {
      */
     public Article setUnitPrice(long unitPrice) {
         if(unitPrice >=0 ) {
-//        	NumberFormat format = NumberFormat.getCurrencyInstance(Locale.GERMANY);
-//            String currency = format.format(unitPrice);
-//        	unitPrice = currency;
+        	if(unitPrice != this.unitPrice) {
+        		pricedVersion = Long.MAX_VALUE;
+        		this.unitPrice = unitPrice;
+        		pricedVersion = pricingVersion.incrementAndGet();
+        		if(listener != null) {
+        			listener.pricingChanged(this);
+        		}
+        	}
         	return this;
         }else {
         	throw new IllegalArgumentException("nope");
@@ -156,6 +197,12 @@ public class Article {
     	if(currency == null) {
     		throw new IllegalArgumentException("nope");
     	}
+    	if(currency != this.currency) {
+    		this.currency = currency;
+    		if(listener != null) {
+    			listener.pricingChanged(this);
+    		}
+    	}
     	return this;
     }
 
@@ -177,8 +224,29 @@ public class Article {
     	if(tax == null) {
     		throw new IllegalArgumentException("nope");
     	}
+    	pricedVersion = Long.MAX_VALUE;
     	this.tax = tax;
+    	pricedVersion = pricingVersion.incrementAndGet();
+    	if(listener != null) {
+    		listener.pricingChanged(this);
+    	}
     	return this;
     }
 
+    /**
+     * Version of prices and tax rates of all articles.
+     * @return version, changes when any article price or tax rate changes.
+     */
+    static long pricingVersion() {
+    	return pricingVersion.get();
+    }
+
+    /**
+     * Version of the last change to price or tax rate of this article.
+     * @return version, {@code Long.MAX_VALUE} while a change is in progress.
+     */
+    long pricedVersion() {
+    	return pricedVersion;
+    }
+
 }
@@ -0,0 +1,131 @@
+package datamodel;
+
+import java.util.List;
+
+
+/**
+ * Listener interface to observe changes of entity attributes.
+ * <p>
+ * Factories that keep indexes over created objects register a listener with
+ * each object they create in order to keep indexes in sync when attributes
+ * change after creation, e.g. with the fluent {@code createOrder(...).setId(...)}
+ * pattern. All methods have empty default implementations.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+public interface ChangeListener {
+
+	/**
+	 * Invoked after the id of a Customer has changed.
+	 *
+	 * @param customer Customer with changed id.
+	 * @param previousId id before the change, {@code -1} if id was unassigned.
+	 */
+	default void idChanged(Customer customer, long previousId) { }
+
+	/**
+	 * Invoked after the id of an Article has changed.
+	 *
+	 * @param article Article with changed id.
+	 * @param previousId id before the change, {@code null} if id was unassigned.
+	 */
+	default void idChanged(Article article, String previousId) { }
+
+	/**
+	 * Invoked after the id of an Order has changed.
+	 *
+	 * @param order Order with changed id.
+	 * @param previousId id before the change, {@code null} if id was unassigned.
+	 */
+	default void idChanged(Order order, String previousId) { }
+
+	/**
+	 * Invoked after an item has been added to an Order.
+	 *
+	 * @param order Order to which item was added.
+	 * @param item added OrderItem.
+	 */
+	default void itemAdded(Order order, OrderItem item) { }
+
+	/**
+	 * Invoked after an item has been removed from an Order.
+	 *
+	 * @param order Order from which item was removed.
+	 * @param item removed OrderItem.
+	 */
+	default void itemRemoved(Order order, OrderItem item) { }
+
+	/**
+	 * Invoked after the item at an index has been removed from an Order,
+	 * the default implementation invokes {@link #itemRemoved(Order, OrderItem)}.
+	 *
+	 * @param order Order from which item was removed.
+	 * @param item removed OrderItem.
+	 * @param index index the item had in the Order.
+	 */
+	default void itemRemoved(Order order, OrderItem item, int index) {
+		itemRemoved(order, item);
+	}
+
+	/**
+	 * Invoked after all items have been removed from an Order, the default
+	 * implementation invokes {@link #itemRemoved(Order, OrderItem, int)} for
+	 * each item as if removed from the front.
+	 *
+	 * @param order Order from which items were removed.
+	 * @param removed removed OrderItems in their previous order.
+	 */
+	default void itemsCleared(Order order, List<OrderItem> removed) {
+		for(OrderItem item : removed) {
+			itemRemoved(order, item, 0);
+		}
+	}
+
+	/**
+	 * Invoked after the units ordered of an item have changed.
+	 *
+	 * @param order Order that contains the item.
+	 * @param item OrderItem with changed units.
+	 * @param previousUnits units ordered before the change.
+	 */
+	default void unitsChanged(Order order, OrderItem item, int previousUnits) { }
+
+	/**
+	 * Invoked after the unit price, currency or tax rate of an Article has changed.
+	 *
+	 * @param article Article with changed price, currency or tax rate.
+	 */
+	default void pricingChanged(Article article) { }
+
+	/**
+	 * Invoked after the description of an Article has changed.
+	 *
+	 * @param article Article with changed description.
+	 */
+	default void descriptionChanged(Article article) { }
+
+	/**
+	 * Invoked after the first or last name of a Customer has changed.
+	 *
+	 * @param customer Customer with changed name.
+	 */
+	default void nameChanged(Customer customer) { }
+
+	/**
+	 * Invoked after a contact of a Customer has been added or deleted.
+	 *
+	 * @param customer Customer with changed contacts.
+	 */
+	default void contactsChanged(Customer customer) { }
+
+	/**
+	 * Invoked after the creation date of an Order has changed.
+	 *
+	 * @param order Order with changed creation date.
+	 * @param previousDate creation date before the change (in milliseconds since 01/01/1970).
+	 */
+	default void creationDateChanged(Order order, long previousDate) { }
+
+}
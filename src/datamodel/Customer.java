@@ -34,6 +34,11 @@ public class Customer {
      */
     private final List<String> contacts;
 
+    /**
+     * Listener notified about attribute changes, may be null.
+     */
+    private ChangeListener listener;
+
     /**
      * Default constructor
      */
@@ -74,6 +79,14 @@ public class Customer {
         return id;
     }
 
+    /**
+     * Id getter as primitive value that does not box the id for lookups.
+     * @return customer id, returns {@code -1}, if id is unassigned.
+     */
+    public long getIdAsLong() {
+        return id;
+    }
+
     /**
      * Id setter. Id can only be set once with valid id, id is immutable after assignment.
      * @param id value to assign if this.id attribute is still unassigned {@code id < 0} and id argument is valid.
@@ -87,10 +100,24 @@ public class Customer {
     	if(this.id > 0) {
     		return this;
     	}
+    	long previousId = this.id;
     	this.id = id;
+    	if(listener != null && previousId != id) {
+    		listener.idChanged(this, previousId);
+    	}
         return this;
     }
 
+    /**
+     * ChangeListener setter, listener is notified about attribute changes.
+     * @param listener listener to notify, null removes the listener.
+     * @return chainable self-reference.
+     */
+    public Customer setChangeListener(ChangeListener listener) {
+    	this.listener = listener;
+    	return this;
+    }
+
     /**
      * LastName getter.
      * @return value of lastName attribute, never null, mapped to "".
@@ -117,6 +144,9 @@ public class Customer {
     public Customer setName(String first, String last) {
     	this.firstName = first;
     	this.lastName = last;
+    	if(listener != null) {
+    		listener.nameChanged(this);
+    	}
         return this;
     }
 
@@ -129,6 +159,9 @@ public class Customer {
      */
     public Customer setName(String name){
     	this.splitName(name);
+    	if(listener != null) {
+    		listener.nameChanged(this);
+    	}
         return this;
     }
 
@@ -179,6 +212,9 @@ public class Customer {
     		}
     	contact = contact.replaceAll("\"", "").trim();
         contacts.add(contact);
+        if(listener != null) {
+        	listener.contactsChanged(this);
+        }
         return this;
     }
     
@@ -189,6 +225,9 @@ public class Customer {
     public void deleteContact(int i) {
     	if(i >= 0 && i < contactsCount()) {
         contacts.remove(i);
+        if(listener != null) {
+        	listener.contactsChanged(this);
+        }
     	}
     }
 
@@ -197,6 +236,9 @@ public class Customer {
      */
     public void deleteAllContacts() {
         contacts.clear();
+        if(listener != null) {
+        	listener.contactsChanged(this);
+        }
     }
 
     /**
@@ -1,6 +1,11 @@
 package datamodel;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Class of entity type <i>Order</i>.
@@ -29,9 +34,56 @@ public class Order {
     private final Date creationDate;
 
     /**
-     * Items that are ordered as part of this order.
+     * Items that are ordered as part of this order. The list is immutable and
+     * replaced with every change, iterations see one state of the order and
+     * never throw {@code ConcurrentModificationException}. Replaced lists
+     * are chained as long as an open items version may need them.
      */
-    private final List<OrderItem> items;
+    private volatile ItemList items = ItemList.EMPTY;
+
+    /**
+     * Clock of items versions, advanced by {@link #openItemsVersion()}, and
+     * open versions with their number of holders.
+     */
+    private static final AtomicLong itemsClock = new AtomicLong();
+    private static final NavigableMap<Long, Integer> openVersions = new ConcurrentSkipListMap<Long, Integer>();
+
+    /**
+     * Listener notified about attribute changes, may be null.
+     */
+    private ChangeListener listener;
+
+    /**
+     * Running totals of gross value and included VAT over all items (in cent),
+     * updated when items are added, deleted or units change. Totals are
+     * replaced as a whole, readers always see a consistent value and VAT.
+     */
+    private final AtomicReference<Totals> totals =
+    		new AtomicReference<Totals>(new Totals(0L, 0L, Article.pricingVersion()));
+
+    /**
+     * Immutable totals with the article pricing version they were calculated
+     * for. Totals are recalculated when the price or tax rate of an article of
+     * the order has changed after that version.
+     */
+    private static final class Totals {
+    	/**
+    	 * Marker for totals that must be recalculated from items, set when
+    	 * the price of an article changed after the totals were calculated,
+    	 * a delta at the current price would not match the totals.
+    	 */
+    	static final Totals STALE = new Totals(0L, 0L, -1L);
+
+    	final long value;
+    	final long vat;
+    	final long version;
+
+    	Totals(long value, long vat, long version) {
+    		this.value = value;
+    		this.vat = vat;
+    		this.version = version;
+    	}
+    }
 
     /**
      * Constructor with customer owning the order.
@@ -43,7 +95,6 @@ public class Order {
     		throw new IllegalArgumentException("Customer is null or has invalid id");
     	}
     	this.id = "";
-    	this.items = new ArrayList<OrderItem>();
     	this.customer = customer;
     	//Date dtf =  DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
     	  
@@ -79,9 +130,22 @@ public class Order {
     		return this;
     	}
     	this.id = id;
+    	if(listener != null) {
+    		listener.idChanged(this, null);
+    	}
         return this;
     }
 
+    /**
+     * ChangeListener setter, listener is notified about attribute changes.
+     * @param listener listener to notify, null removes the listener.
+     * @return chainable self-reference.
+     */
+    public Order setChangeListener(ChangeListener listener) {
+    	this.listener = listener;
+    	return this;
+    }
+
     /**
      * Customer getter.
      * @return owning customer, cannot be null.
@@ -114,7 +178,11 @@ public class Order {
     	if(currentdate.before(date) || currentdate.after(date2)) {
     		throw new IllegalArgumentException("nope");
     	}
+    	long previousDate = creationDate.getTime();
     	creationDate.setTime(datetime);
+    	if(listener != null && previousDate != datetime) {
+    		listener.creationDateChanged(this, previousDate);
+    	}
         return this;
     }
 
@@ -123,18 +191,54 @@ public class Order {
      * @return number of ordered items.
      */
     public int itemsCount() {
-        int sum = items.size();
+        int sum = items.length();
         return sum;
     }
 
     /**
      * Ordered items getter.
-     * @return ordered items.
+     * @return unmodifiable ordered items, not affected by later changes to the order.
      */
     public Iterable<OrderItem> getItems() {
     	return items;
     }
 
+    /**
+     * Ordered items getter for an items version.
+     * @param version open items version, see {@link #openItemsVersion()}.
+     * @return unmodifiable items the order had when the version was opened.
+     */
+    public List<OrderItem> getItems(long version) {
+    	for(ItemList list = items; list != null; list = list.previous) {
+    		if(list.stamp() < version)
+    			return list;
+    	}
+    	return ItemList.EMPTY;
+    }
+
+    /**
+     * Open an items version in O(1), {@link #getItems(long)} returns the items
+     * of any order as of that point in time until the version is closed.
+     * @return open items version.
+     */
+    public static long openItemsVersion() {
+    	synchronized(openVersions) {	// register before advancing the clock
+    		final long version = itemsClock.get() + 1;
+    		openVersions.merge(version, 1, Integer::sum);
+    		itemsClock.set(version);
+    		return version;
+    	}
+    }
+
+    /**
+     * Close an items version, replaced items only needed by that version can
+     * then be released.
+     * @param version items version returned by {@link #openItemsVersion()}.
+     */
+    public static void closeItemsVersion(long version) {
+    	openVersions.computeIfPresent(version, (v, holders) -> holders > 1? holders - 1 : null);
+    }
+
     /**
      * Create new item and add to order.
      * @param article article ordered from catalog.
@@ -146,16 +250,30 @@ public class Order {
     	if(article == null || units <0) {
     		throw new IllegalArgumentException("nope");
     	}
-    	items.add(new OrderItem(article, units));
+    	OrderItem item = new OrderItem(article, units);
+    	item.order = this;
+    	replaceItems(items.plus(item));
+    	accumulate(article, units, 1);
+    	if(listener != null) {
+    		listener.itemAdded(this, item);
+    	}
         return this;
     }
     
-    public long bla() {
-    	long a = 0;
-    	for(OrderItem haha : items) {
-    		a += haha.getArticle().getUnitPrice() * haha.getUnitsOrdered();
-    	}
-    	return a;
+    /**
+     * Total value getter, compounded gross value of all ordered items.
+     * @return total gross value of order in cent (including VAT).
+     */
+    public long getTotalValue() {
+    	return refreshTotals().value;
+    }
+
+    /**
+     * Total VAT getter, compounded VAT included in the values of all ordered items.
+     * @return total VAT included in order value in cent.
+     */
+    public long getTotalVAT() {
+    	return refreshTotals().vat;
     }
 
     /**
@@ -163,8 +281,14 @@ public class Order {
      * @param i index of item to delete, only a valid index deletes item.
      */
     public void deleteItem(int i) {
-    	if(i >= 0 && i < items.size()) {
-            items.remove(i);
+    	if(i >= 0 && i < items.length()) {
+            OrderItem item = items.get(i);
+            replaceItems(items.minus(i));
+            item.order = null;
+            accumulate(item.getArticle(), item.getUnitsOrdered(), -1);
+            if(listener != null) {
+            	listener.itemRemoved(this, item, i);
+            }
         	}
     }
 
@@ -172,7 +296,170 @@ public class Order {
      * Delete all ordered items.
      */
     public void deleteAllItems() {
-        items.clear();
+    	List<OrderItem> removed = items;
+        removed.forEach(item -> item.order = null);
+        replaceItems(new ItemList(new OrderItem[0]));
+        totals.set(new Totals(0L, 0L, Article.pricingVersion()));
+        if(listener != null && ! removed.isEmpty()) {
+        	listener.itemsCleared(this, removed);
+        }
+    }
+
+    /**
+     * Update running totals after units of an item have changed.
+     * @param item item with changed units.
+     * @param previousUnits units ordered before the change.
+     */
+    void unitsChanged(OrderItem item, int previousUnits) {
+    	accumulate(item.getArticle(), previousUnits, -1);
+    	accumulate(item.getArticle(), item.getUnitsOrdered(), 1);
+    	if(listener != null) {
+    		listener.unitsChanged(this, item, previousUnits);
+    	}
+    }
+
+    /**
+     * Add (sign 1) or subtract (sign -1) value and VAT of units of an article to running totals.
+     */
+    private void accumulate(Article article, int units, int sign) {
+    	long value = article.getUnitPrice() * units;
+    	TAX tax = article.getTax() != null? article.getTax() : TAX.GER_VAT;
+    	long vat = sign * tax.includedVAT(value);
+    	long priced = article.pricedVersion();	// read after price and tax
+    	Totals current;
+    	do {
+    		current = totals.get();
+    	} while( ! totals.compareAndSet(current, priced > current.version? Totals.STALE :
+    			new Totals(current.value + sign * value, current.vat + vat, current.version)));
+    }
+
+    /**
+     * Return current totals, recalculates totals from items when the price or
+     * tax rate of an article of the order has changed. Changes to other
+     * articles only advance the version of the totals.
+     */
+    private Totals refreshTotals() {
+    	final Totals current = totals.get();
+    	final ItemList items = this.items;
+    	final long version = Article.pricingVersion();	// read before articles
+    	if(version == current.version)
+    		return current;
+    	//
+    	boolean changed = current.version < 0;
+    	for(OrderItem item : items) {
+    		if(item.getArticle().pricedVersion() > current.version) {
+    			changed = true;
+    			break;
+    		}
+    	}
+    	Totals refreshed;
+    	if(changed) {
+    		long value = 0L, vat = 0L;
+    		for(OrderItem item : items) {
+    			Article article = item.getArticle();
+    			TAX tax = article.getTax() != null? article.getTax() : TAX.GER_VAT;
+    			long v = article.getUnitPrice() * item.getUnitsOrdered();
+    			value += v;
+    			vat += tax.includedVAT(v);
+    		}
+    		refreshed = new Totals(value, vat, version);
+    	} else {
+    		refreshed = new Totals(current.value, current.vat, version);
+    	}
+    	// publish unless items changed meanwhile, those totals are then returned
+    	return totals.compareAndSet(current, refreshed)? refreshed : totals.get();
+    }
+
+    /**
+     * Publish new items list and chain the replaced list when an items version
+     * may need it. A new list is stamped with the clock after it is published,
+     * racing readers of a version stamp it themselves, so a list published
+     * while a version is opened is seen by all readers of the version alike.
+     */
+    private void replaceItems(ItemList next) {
+    	final ItemList replaced = items;
+    	next.previous = replaced;
+    	items = next;
+    	final long stamp = next.stamp();
+    	if(replaced.stamp() == stamp) {	// no version opened in between
+    		next.previous = replaced.previous;
+    	}
+    	// release lists older than the list the oldest open version needs
+    	final long clock = itemsClock.get();
+    	final Map.Entry<Long, Integer> oldest = openVersions.firstEntry();
+    	final long needed = oldest != null? Math.min(oldest.getKey(), clock + 1) : clock + 1;
+    	for(ItemList list = next; list != null; list = list.previous) {
+    		if(list.stamp() < needed) {
+    			if(list.previous != null) {
+    				list.previous = null;
+    			}
+    			break;
+    		}
+    	}
+    }
+
+    /**
+     * Immutable list of items, changes return a new list. Lists are stamped
+     * with the items clock and chained to the list they replaced.
+     */
+    private static final class ItemList extends AbstractList<OrderItem> implements RandomAccess {
+    	static final ItemList EMPTY = new ItemList(new OrderItem[0], 0L);
+    	private static final long PENDING = Long.MAX_VALUE;
+    	private static final VarHandle STAMP;
+
+    	static {
+    		try {
+    			STAMP = MethodHandles.lookup().findVarHandle(ItemList.class, "stamp", long.class);
+    		} catch(ReflectiveOperationException e) {
+    			throw new ExceptionInInitializerError(e);
+    		}
+    	}
+
+    	private final OrderItem[] items;
+    	private volatile long stamp;
+    	private volatile ItemList previous = null;
+
+    	ItemList(OrderItem[] items) {
+    		this(items, PENDING);
+    	}
+
+    	private ItemList(OrderItem[] items, long stamp) {
+    		this.items = items;
+    		this.stamp = stamp;
+    	}
+
+    	/**
+    	 * Return stamp, the first caller stamps a pending list with the clock.
+    	 */
+    	long stamp() {
+    		long s = stamp;
+    		if(s == PENDING) {
+    			STAMP.compareAndSet(this, PENDING, itemsClock.get());
+    			s = stamp;
+    		}
+    		return s;
+    	}
+
+    	ItemList plus(OrderItem item) {
+    		OrderItem[] grown = Arrays.copyOf(items, items.length + 1);
+    		grown[items.length] = item;
+    		return new ItemList(grown);
+    	}
+
+    	ItemList minus(int i) {
+    		OrderItem[] rest = new OrderItem[items.length - 1];
+    		System.arraycopy(items, 0, rest, 0, i);
+    		System.arraycopy(items, i + 1, rest, i, rest.length - i);
+    		return new ItemList(rest);
+    	}
+
+    	int length() { return items.length; }
+
+    	@Override
+    	public OrderItem get(int index) { return items[index]; }
+
+    	@Override
+    	public int size() { return items.length; }
     }
 
 }
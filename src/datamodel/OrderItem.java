@@ -21,6 +21,11 @@ public class OrderItem {
      */
     private int unitsOrdered;
 
+    /**
+     * Order this item is part of, null after the item was deleted from its order.
+     */
+    Order order;
+
     /**
      * Constructor of ordered line item with article and units arguments.
      * @param article ordered article, throws IllegalArgumentException if article is null
@@ -59,7 +64,11 @@ public class OrderItem {
     	if(unitsOrdered < 0) {
     		throw new IllegalArgumentException("nope");
     	}
+    	int previousUnits = this.unitsOrdered;
     	this.unitsOrdered = units;
+    	if(order != null) {
+    		order.unitsChanged(this, previousUnits);
+    	}
     }
 
 }
@@ -1,5 +1,8 @@
 package datamodel;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
 
 /**
  * Java Enum Type to enumerate tax rates applicable for articles.
@@ -17,7 +20,77 @@ package datamodel;
  * @author <code style=color:blue>{@value application.package_info#Author}</code>
  */
 public enum TAX {
-    TAXFREE,
-    GER_VAT,
-    GER_VAT_REDUCED
+    TAXFREE(0),
+    GER_VAT(1900),
+    GER_VAT_REDUCED(700);
+
+    /**
+     * Tax rate in basis points (1/100 percent), 1900 for 19%.
+     */
+    private final int basisPoints;
+
+    /**
+     * Divisor {@code 10000 + basisPoints} that extracts tax from a gross value.
+     */
+    private final long divisor;
+
+    /**
+     * Largest absolute gross value for which {@link #includedVAT(long)}
+     * computes in {@code long} arithmetic without overflow.
+     */
+    private final long exactLimit;
+
+    /**
+     * Constructor with tax rate.
+     * @param basisPoints tax rate in basis points.
+     */
+    private TAX(int basisPoints) {
+        this.basisPoints = basisPoints;
+        this.divisor = 10000L + basisPoints;
+        this.exactLimit = basisPoints == 0? Long.MAX_VALUE : (Long.MAX_VALUE - divisor) / (2L * basisPoints);
+    }
+
+    /**
+     * Rate getter.
+     * @return tax rate in percent.
+     */
+    public double getRate() {
+        return basisPoints / 100.0;
+    }
+
+    /**
+     * Rate getter in basis points.
+     * @return tax rate in basis points (1/100 percent), e.g. 1900 for 19%.
+     */
+    public int getRateBasisPoints() {
+        return basisPoints;
+    }
+
+    /**
+     * Calculate VAT included in a gross value (rounded to cent), which is
+     * {@code grossValue * rate / (100 + rate)} rounded {@link RoundingMode#HALF_UP}.
+     * The calculation is exact in integer arithmetic and falls back to
+     * {@link BigDecimal} only when it would overflow {@code long}.
+     * @param grossValue value that includes tax.
+     * @return tax included in gross value based on tax rate.
+     */
+    public long includedVAT(long grossValue) {
+        if(grossValue > exactLimit || grossValue < -exactLimit)
+            return includedVATExact(grossValue);
+        //
+        // half-up: (2 * |gross| * bp + divisor) / (2 * divisor), sign applied after rounding
+        final long abs = Math.abs(grossValue);
+        final long vat = (2L * abs * basisPoints + divisor) / (2L * divisor);
+        return grossValue < 0? -vat : vat;
+    }
+
+    /**
+     * BigDecimal calculation for gross values beyond {@code exactLimit}.
+     */
+    private long includedVATExact(long grossValue) {
+        return BigDecimal.valueOf(grossValue)
+            .multiply(BigDecimal.valueOf(basisPoints))
+            .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP)
+            .longValueExact();
+    }
 }
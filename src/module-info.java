@@ -16,5 +16,6 @@ module se1.bestellsystem {
 	exports system;
 	requires org.junit.jupiter.api;
 	requires junit;
+	requires static jdk.incubator.vector;
 
 }
\ No newline at end of file
@@ -1,5 +1,8 @@
 package system;
 
+import java.util.Collection;
+import java.util.Map;
+
 import datamodel.Order;
 import datamodel.TAX;
 
@@ -40,4 +43,161 @@ public interface Calculator {
 	 */
 	public long[] calculateValueAndTax(Order order);
 
+	/**
+	 * Calculate compounded value and VAT tax over a collection of orders.
+	 * Large random access lists are aggregated in parallel on the common
+	 * {@link java.util.concurrent.ForkJoinPool}, other collections sequentially.
+	 * 
+	 * @param orders orders to calculate totals, null elements are ignored.
+	 * @return immutable totals, {@link Totals#ZERO} for a null or empty collection.
+	 */
+	public Totals calculateTotals(Collection<Order> orders);
+
+
+	/**
+	 * Calculate net value, VAT tax and gross value per tax rate over all
+	 * order items in one pass, items without tax rate count as German VAT.
+	 * 
+	 * @param order order to calculate breakdown.
+	 * @return unmodifiable map ordered by tax rate with entries for rates that occur in order items.
+	 */
+	public Map<TAX, TaxAmounts> calculateTaxBreakdown(Order order);
+
+	/**
+	 * Calculate net value, VAT tax and gross value per tax rate over all
+	 * items of a collection of orders in one pass.
+	 * 
+	 * @param orders orders to calculate breakdown, null elements are ignored.
+	 * @return unmodifiable map ordered by tax rate with entries for rates that occur in order items.
+	 */
+	public Map<TAX, TaxAmounts> calculateTaxBreakdown(Collection<Order> orders);
+
+
+	/**
+	 * Immutable totals of value and VAT tax over a number of orders.
+	 */
+	public final class Totals {
+
+		/**
+		 * Totals of no orders.
+		 */
+		public static final Totals ZERO = new Totals(0, 0L, 0L);
+
+		private final int orderCount;
+		private final long value;
+		private final long vat;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param orderCount number of orders.
+		 * @param value compounded value of orders.
+		 * @param vat compounded VAT tax of orders.
+		 */
+		public Totals(int orderCount, long value, long vat) {
+			this.orderCount = orderCount;
+			this.value = value;
+			this.vat = vat;
+		}
+
+		/**
+		 * Number of orders getter.
+		 * @return number of orders included in totals.
+		 */
+		public int getOrderCount() {
+			return orderCount;
+		}
+
+		/**
+		 * Value getter.
+		 * @return compounded value of orders.
+		 */
+		public long getValue() {
+			return value;
+		}
+
+		/**
+		 * VAT getter.
+		 * @return compounded VAT tax of orders.
+		 */
+		public long getVAT() {
+			return vat;
+		}
+
+		/**
+		 * Combine totals.
+		 * @param other totals to add.
+		 * @return new totals of both.
+		 */
+		public Totals plus(Totals other) {
+			return new Totals(orderCount + other.orderCount, value + other.value, vat + other.vat);
+		}
+
+		@Override
+		public String toString() {
+			return "Totals{orders=" + orderCount + ", value=" + value + ", vat=" + vat + "}";
+		}
+	}
+
+
+	/**
+	 * Immutable net value, VAT tax and gross value of one tax rate.
+	 */
+	public final class TaxAmounts {
+
+		private final TAX tax;
+		private final long gross;
+		private final long vat;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param tax tax rate.
+		 * @param gross gross value that includes VAT tax.
+		 * @param vat VAT tax included in gross value.
+		 */
+		public TaxAmounts(TAX tax, long gross, long vat) {
+			this.tax = tax;
+			this.gross = gross;
+			this.vat = vat;
+		}
+
+		/**
+		 * Tax rate getter.
+		 * @return tax rate of amounts.
+		 */
+		public TAX getTax() {
+			return tax;
+		}
+
+		/**
+		 * Net value getter.
+		 * @return gross value without VAT tax.
+		 */
+		public long getNet() {
+			return gross - vat;
+		}
+
+		/**
+		 * VAT getter.
+		 * @return VAT tax included in gross value.
+		 */
+		public long getVAT() {
+			return vat;
+		}
+
+		/**
+		 * Gross value getter.
+		 * @return gross value including VAT tax.
+		 */
+		public long getGross() {
+			return gross;
+		}
+
+		@Override
+		public String toString() {
+			return "TaxAmounts{" + tax + ", net=" + getNet() + ", vat=" + vat + ", gross=" + gross + "}";
+		}
+	}
+
 }
@@ -1,11 +1,14 @@
 package system;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import datamodel.Article;
 import datamodel.Customer;
 import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
 
 public interface DatamodelFactory {
 	
@@ -37,4 +40,297 @@ public interface DatamodelFactory {
 	
 	public int ordersCount();
 	
+	/**
+	 * Return orders owned by a customer in order of creation.
+	 * 
+	 * @param customer owning customer.
+	 * @return unmodifiable list of orders of customer, empty list if none.
+	 */
+	public List<Order> ordersOf(Customer customer);
+	
+	/**
+	 * Return orders owned by the customer with the given id in order of creation.
+	 * 
+	 * @param customerId id of owning customer.
+	 * @return unmodifiable list of orders of customer, empty list if none.
+	 */
+	public List<Order> ordersOfCustomerId(long customerId);
+	
+	/**
+	 * Return orders that contain at least one item of the article with the given id.
+	 * 
+	 * @param articleId id of ordered article.
+	 * @return orders containing article, empty list if none.
+	 */
+	public List<Order> findOrdersContaining(String articleId);
+	
+	/**
+	 * Return orders created in a time range, ordered by creation date and
+	 * orders with equal creation date in order of creation.
+	 * 
+	 * @param from start of range (inclusive) in milliseconds since 01/01/1970.
+	 * @param to end of range (exclusive) in milliseconds since 01/01/1970.
+	 * @return orders created in range, empty list if none.
+	 * @throws IllegalArgumentException when {@code from > to}.
+	 */
+	public List<Order> findOrdersCreatedBetween(long from, long to);
+	
+	/**
+	 * Return the most recently created orders by creation date, latest first.
+	 * 
+	 * @param n maximum number of returned orders.
+	 * @return up to n latest orders, empty list if none.
+	 * @throws IllegalArgumentException when {@code n < 0}.
+	 */
+	public List<Order> findLatestOrders(int n);
+	
+	/**
+	 * Return page of created customers, see {@link #ordersPage(String, int)}.
+	 * 
+	 * @param token resume token of previous page, null for first page.
+	 * @param size maximum number of customers in page.
+	 * @return page of customers in order of creation.
+	 * @throws IllegalArgumentException when token is invalid or {@code size < 1}.
+	 */
+	public Page<Customer> customersPage(String token, int size);
+	
+	/**
+	 * Return page of created articles, see {@link #ordersPage(String, int)}.
+	 * 
+	 * @param token resume token of previous page, null for first page.
+	 * @param size maximum number of articles in page.
+	 * @return page of articles in order of creation.
+	 * @throws IllegalArgumentException when token is invalid or {@code size < 1}.
+	 */
+	public Page<Article> articlesPage(String token, int size);
+	
+	/**
+	 * Return page of created orders in order of creation. The first page
+	 * fixes the view to the orders created so far, following pages resume
+	 * with the token of the previous page and never include orders created
+	 * later. Tokens are positions in this factory and remain valid for its
+	 * lifetime since created objects are never removed. Tokens are not valid
+	 * for a factory recovered from a journal, objects created concurrently
+	 * may be replayed in a different order.
+	 * 
+	 * @param token resume token of previous page, null for first page.
+	 * @param size maximum number of orders in page.
+	 * @return page of orders in order of creation.
+	 * @throws IllegalArgumentException when token is invalid or {@code size < 1}.
+	 */
+	public Page<Order> ordersPage(String token, int size);
+	
+	/**
+	 * Return point-in-time view of the customers, articles and orders created
+	 * so far. The view is taken in O(1) without copying, objects created
+	 * later are not part of it.
+	 * 
+	 * @return immutable view of created objects.
+	 */
+	public Snapshot snapshot();
+	
+	
+	/**
+	 * Immutable view of the objects created up to a point in time. The
+	 * membership of the view is fixed. Customers and articles are shared
+	 * with the factory, their attributes are those of the live objects.
+	 * Orders are read-only {@link OrderView}s that keep the items an order had
+	 * when the snapshot was taken, items added or removed later are not
+	 * visible; units ordered of an item and prices are those of the live objects.
+	 */
+	public final class Snapshot {
+
+		private final List<Customer> customers;
+		private final List<Article> articles;
+		private final List<OrderView> orders;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param customers unmodifiable list of customers in view.
+		 * @param articles unmodifiable list of articles in view.
+		 * @param orders unmodifiable list of views of orders.
+		 */
+		public Snapshot(List<Customer> customers, List<Article> articles, List<OrderView> orders) {
+			this.customers = customers;
+			this.articles = articles;
+			this.orders = orders;
+		}
+
+		/**
+		 * Customers getter.
+		 * @return unmodifiable list of customers in order of creation.
+		 */
+		public List<Customer> getCustomers() {
+			return customers;
+		}
+
+		/**
+		 * Articles getter.
+		 * @return unmodifiable list of articles in order of creation.
+		 */
+		public List<Article> getArticles() {
+			return articles;
+		}
+
+		/**
+		 * Orders getter.
+		 * @return unmodifiable list of views of orders in order of creation.
+		 */
+		public List<OrderView> getOrders() {
+			return orders;
+		}
+
+		@Override
+		public String toString() {
+			return "Snapshot{customers=" + customers.size() + ", articles=" + articles.size()
+				+ ", orders=" + orders.size() + "}";
+		}
+	}
+
+
+	/**
+	 * Read-only view of an order with the items the order had at a point in
+	 * time. Totals are calculated over these items.
+	 */
+	public final class OrderView {
+
+		private final Order order;
+		private final List<OrderItem> items;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param order viewed order.
+		 * @param items unmodifiable items of the order at the point in time.
+		 */
+		public OrderView(Order order, List<OrderItem> items) {
+			this.order = order;
+			this.items = items;
+		}
+
+		/**
+		 * Order getter.
+		 * @return live order, its items may have changed since the view was taken.
+		 */
+		public Order getOrder() {
+			return order;
+		}
+
+		/**
+		 * Id getter.
+		 * @return order id, null if unassigned.
+		 */
+		public String getId() {
+			return order.getId();
+		}
+
+		/**
+		 * Customer getter.
+		 * @return customer who placed the order.
+		 */
+		public Customer getCustomer() {
+			return order.getCustomer();
+		}
+
+		/**
+		 * CreationDate getter.
+		 * @return time/date when order was created in ms since 01/01/1970.
+		 */
+		public long getCreationDate() {
+			return order.getCreationDate();
+		}
+
+		/**
+		 * Items getter.
+		 * @return unmodifiable items of the order at the point in time.
+		 */
+		public List<OrderItem> getItems() {
+			return items;
+		}
+
+		/**
+		 * Total value getter, summed over the items of the view since running
+		 * totals of the live order may belong to later items.
+		 * @return total gross value of items in cent (including VAT).
+		 */
+		public long getTotalValue() {
+			long value = 0L;
+			for(OrderItem item : items) {
+				value += item.getUnitsOrdered() * item.getArticle().getUnitPrice();
+			}
+			return value;
+		}
+
+		/**
+		 * Total VAT getter.
+		 * @return total VAT included in value of items in cent.
+		 */
+		public long getTotalVAT() {
+			long vat = 0L;
+			for(OrderItem item : items) {
+				final Article article = item.getArticle();
+				final TAX tax = article.getTax() != null? article.getTax() : TAX.GER_VAT;
+				vat += tax.includedVAT(item.getUnitsOrdered() * article.getUnitPrice());
+			}
+			return vat;
+		}
+
+		@Override
+		public String toString() {
+			return "OrderView{id=" + getId() + ", items=" + items.size() + "}";
+		}
+	}
+
+
+	/**
+	 * Immutable page of objects with resume token for the next page.
+	 * 
+	 * @param <T> type of objects in page.
+	 */
+	public final class Page<T> {
+
+		private final List<T> items;
+		private final String nextToken;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param items objects in page.
+		 * @param nextToken resume token of next page, null for last page.
+		 */
+		public Page(List<T> items, String nextToken) {
+			this.items = Collections.unmodifiableList(items);
+			this.nextToken = nextToken;
+		}
+
+		/**
+		 * Items getter.
+		 * @return unmodifiable list of objects in page.
+		 */
+		public List<T> getItems() {
+			return items;
+		}
+
+		/**
+		 * Next token getter.
+		 * @return resume token of next page, empty Optional for last page.
+		 */
+		public Optional<String> getNextToken() {
+			return Optional.ofNullable(nextToken);
+		}
+
+		/**
+		 * Return whether a next page follows.
+		 * @return true when a next page follows.
+		 */
+		public boolean hasNext() {
+			return nextToken != null;
+		}
+
+		@Override
+		public String toString() {
+			return "Page{items=" + items.size() + ", next=" + nextToken + "}";
+		}
+	}
 }
@@ -0,0 +1,125 @@
+package system;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Interface of an append-only journal that records every create call of the
+ * {@link DatamodelFactory} and every mutating call on created objects. The
+ * journal is replayed at startup to recover the datamodel after a crash.
+ * <p>
+ * The journal is enabled with system properties, e.g.
+ * {@code java -Dse1.bestellsystem.journal=orders.journal -Dse1.bestellsystem.journal.fsync=ALWAYS ...}.
+ * Records are written in batches by a background thread (group commit).
+ * </p><p>
+ * Checkpoints bound recovery time: a background thread writes the journaled
+ * state as snapshot and deletes the journal records it includes. Recovery
+ * loads the latest checkpoint and replays the journal tail. Checkpoints are
+ * triggered by journal size ({@code -Dse1.bestellsystem.journal.checkpoint=<bytes>})
+ * or by {@link #checkpoint()}.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+public interface DatamodelJournal extends AutoCloseable {
+
+	/**
+	 * Policy when written records are forced to the storage device.
+	 */
+	enum Fsync {
+		/** Mutating calls return after their record has been forced, concurrent calls share one force. */
+		ALWAYS,
+		/** Each written batch is forced, mutating calls do not wait. */
+		BATCH,
+		/** Records are forced only by {@link DatamodelJournal#sync()} and when closing. */
+		NEVER
+	};
+
+
+	/**
+	 * Journal file getter.
+	 *
+	 * @return path of journal file.
+	 */
+	Path getFile();
+
+	/**
+	 * Fsync policy getter.
+	 *
+	 * @return policy when records are forced to the storage device.
+	 */
+	Fsync getFsync();
+
+	/**
+	 * Return number of records appended since the journal was opened.
+	 *
+	 * @return number of appended records.
+	 */
+	long getRecordCount();
+
+	/**
+	 * Return number of records replayed at startup.
+	 *
+	 * @return number of replayed records.
+	 */
+	long getReplayedRecords();
+
+	/**
+	 * Return time recovery took at startup, loading the checkpoint and replaying the journal.
+	 *
+	 * @return recovery time in nanoseconds.
+	 */
+	long getReplayNanos();
+
+	/**
+	 * Checkpoint file getter.
+	 *
+	 * @return path of checkpoint file.
+	 */
+	Path getCheckpointFile();
+
+	/**
+	 * Return number of checkpoints written since the journal was opened.
+	 *
+	 * @return number of checkpoints.
+	 */
+	long getCheckpointCount();
+
+	/**
+	 * Return estimated time recovery would take now, from the size of the
+	 * checkpoint and the number of journal records behind it at the rates
+	 * measured at startup and by the last checkpoint.
+	 *
+	 * @return estimated recovery time in nanoseconds.
+	 */
+	long getEstimatedRecoveryNanos();
+
+	/**
+	 * Write checkpoint of the journaled state and delete the journal records
+	 * it includes. Runs on the calling thread and does not block threads that
+	 * create or mutate objects.
+	 *
+	 * @throws IOException when writing the checkpoint fails or the journal is closed,
+	 * or the last checkpoint written in the background failed.
+	 */
+	void checkpoint() throws IOException;
+
+	/**
+	 * Wait until all appended records have been written and forced to the storage device.
+	 *
+	 * @throws IOException when writing the journal failed.
+	 */
+	void sync() throws IOException;
+
+	/**
+	 * Write and force pending records and close the journal, later mutations are no longer recorded.
+	 *
+	 * @throws IOException when writing the journal or a checkpoint written in the background failed.
+	 */
+	@Override
+	void close() throws IOException;
+
+}
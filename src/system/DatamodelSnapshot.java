@@ -0,0 +1,52 @@
+package system;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Interface to write all Customers, Articles, Orders and OrderItems of a
+ * {@link DatamodelFactory} into a versioned binary snapshot file and to
+ * read them back into a factory, which avoids rebuilding the datamodel
+ * from create calls at startup.
+ * 
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+public interface DatamodelSnapshot {
+
+	/**
+	 * Version of the snapshot file format written by {@link #write(DatamodelFactory, Path)}.
+	 */
+	int VERSION = 1;
+
+
+	/**
+	 * Write objects of a factory into a snapshot file. The file is written
+	 * under a temporary name and moved into place when complete, an existing
+	 * file is replaced.
+	 * 
+	 * @param factory factory with objects to write.
+	 * @param file snapshot file.
+	 * @return size of written file in bytes.
+	 * @throws IOException when writing the file fails.
+	 * @throws IllegalArgumentException when an order refers to a customer or an
+	 * article that was not created by the factory.
+	 */
+	long write(DatamodelFactory factory, Path file) throws IOException;
+
+
+	/**
+	 * Read objects from a snapshot file and create them with a factory,
+	 * typically an empty factory at startup.
+	 * 
+	 * @param file snapshot file.
+	 * @param factory factory that creates objects read from the file.
+	 * @return factory passed as argument.
+	 * @throws IOException when reading fails, the file is not a snapshot, has an
+	 * unsupported version or is corrupt.
+	 */
+	DatamodelFactory read(Path file, DatamodelFactory factory) throws IOException;
+
+}
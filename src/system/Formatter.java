@@ -1,5 +1,9 @@
 package system;
 
+import java.util.Collection;
+import java.util.List;
+
+import datamodel.Customer;
 
 /**
  * Interface to convert values into readable String formats.
@@ -30,6 +34,17 @@ public interface Formatter {
 	public String fmtName(String firstName, String lastName, int... style);
 
 
+	/**
+	 * Format names of a collection of Customers according to a style in one call
+	 * (see {@link #fmtName(String, String, int...)} for styles).
+	 * 
+	 * @param customers customers whose names are formatted, null elements yield null names.
+	 * @param style name formatting style.
+	 * @return formatted names in iteration order of customers, empty list for null argument.
+	 */
+	public List<String> fmtNames(Collection<Customer> customers, int style);
+
+
 	/**
 	 * Format date/time from long value (64 bit, counted ms since 01/01/1970).
 	 * Date and time styles can be combined, e.g. with dateStyle 4, fill: "at"
@@ -85,6 +100,18 @@ public interface Formatter {
 	public String fmtPrice(long price, int... style);
 
 
+	/**
+	 * Format long value to price according to a style (see {@link #fmtPrice(long, int...)})
+	 * appending digits, separators and currency symbol directly to a StringBuilder.
+	 * 
+	 * @param sb StringBuilder to append formatted price to.
+	 * @param price long value as price.
+	 * @param style price formatting style.
+	 * @return sb with appended price.
+	 */
+	public StringBuilder fmtPrice(StringBuilder sb, long price, int style);
+
+
 	/**
 	 * Method to format a long value to a decimal String with a specified
 	 * number of digits.
@@ -96,4 +123,19 @@ public interface Formatter {
 	 */
 	public String fmtDecimal(long value, int decimalDigits, String... unit);
 
+
+	/**
+	 * Format a long value to a decimal with a specified number of digits
+	 * (see {@link #fmtDecimal(long, int, String...)}) appending directly
+	 * to a StringBuilder.
+	 * 
+	 * @param sb StringBuilder to append formatted value to.
+	 * @param value value to format in decimal format.
+	 * @param decimalDigits number of digits (0..3).
+	 * @param unit appended unit, may be null.
+	 * @return sb with appended decimal value.
+	 * @throws IllegalArgumentException if decimalDigits is not in range 0..3.
+	 */
+	public StringBuilder fmtDecimal(StringBuilder sb, long value, int decimalDigits, String unit);
+
 }
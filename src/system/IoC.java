@@ -1,5 +1,6 @@
 package system;
 
+import java.util.Optional;
 
 /**
  * Interface of an "Inversion-of-Control" (IoC) container, which creates and holds
@@ -46,4 +47,19 @@ public interface IoC {
 	
 	
 	OrderBuilder getOrderBuilder();
+
+	/**
+	 * Getter of system singleton component that implements the {@link DatamodelSnapshot} interface.
+	 * 
+	 * @return reference to singleton DatamodelSnapshot instance.
+	 */
+	DatamodelSnapshot getDatamodelSnapshot();
+
+	/**
+	 * Getter of system singleton component that implements the {@link DatamodelJournal} interface.
+	 * The journal is enabled with system property {@code se1.bestellsystem.journal}.
+	 * 
+	 * @return Optional with journal, empty Optional when journaling is not enabled.
+	 */
+	Optional<DatamodelJournal> getDatamodelJournal();
 }
@@ -1,5 +1,11 @@
 package system;
 
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.function.Consumer;
 
@@ -27,6 +33,56 @@ public interface Printer {
 	TablePrinter createTablePrinter(StringBuffer sb, Consumer<TablePrinter.Builder> builder);
 
 
+	/**
+	 * Factory method to create TablePrinter instances collecting table content
+	 * in an unsynchronized StringBuilder.
+	 * 
+	 * @param sb StringBuilder to collect table content.
+	 * @param builder initialize table at creation with columns, widths and alignment.
+	 * @return TablePrinter instance.
+	 */
+	TablePrinter createTablePrinter(StringBuilder sb, Consumer<TablePrinter.Builder> builder);
+
+
+	/**
+	 * Factory method to create streaming TablePrinter instances. Rows are written
+	 * to {@code out} through a buffer of bounded size such that memory use does
+	 * not grow with the size of the table. {@link TablePrinter#flush()} writes
+	 * pending rows after the last row.
+	 * 
+	 * @param out Writer to which table content is streamed.
+	 * @param builder initialize table at creation with columns, widths and alignment.
+	 * @return TablePrinter instance.
+	 */
+	TablePrinter createTablePrinter(Writer out, Consumer<TablePrinter.Builder> builder);
+
+
+	/**
+	 * Factory method to create streaming TablePrinter instances writing to an
+	 * OutputStream in the default charset (as {@code System.out}).
+	 * 
+	 * @param out OutputStream to which table content is streamed.
+	 * @param builder initialize table at creation with columns, widths and alignment.
+	 * @return TablePrinter instance.
+	 */
+	default TablePrinter createTablePrinter(OutputStream out, Consumer<TablePrinter.Builder> builder) {
+		return createTablePrinter(new OutputStreamWriter(out, Charset.defaultCharset()), builder);
+	}
+
+
+	/**
+	 * Factory method to create streaming TablePrinter instances writing to a
+	 * channel, e.g. a {@link java.nio.channels.FileChannel}, in the default charset.
+	 * 
+	 * @param out channel to which table content is streamed.
+	 * @param builder initialize table at creation with columns, widths and alignment.
+	 * @return TablePrinter instance.
+	 */
+	default TablePrinter createTablePrinter(WritableByteChannel out, Consumer<TablePrinter.Builder> builder) {
+		return createTablePrinter(Channels.newWriter(out, Charset.defaultCharset()), builder);
+	}
+
+
 	/**
 	 * Print attributes of one Customer object into StringBuffer as column-separated line.
 	 * <pre>
@@ -41,6 +97,16 @@ public interface Printer {
 	public StringBuffer printCustomer(StringBuffer sb, Customer customer);
 
 
+	/**
+	 * Print attributes of one Customer object into an unsynchronized StringBuilder, see {@link #printCustomer(StringBuffer, Customer)}.
+	 * 
+	 * @param sb StringBuilder that will contains the formatted result. A new StringBuilder is created when sb is null.
+	 * @param customer Customer object.
+	 * @return StringBuilder that contains formatted result (same sb).
+	 */
+	public StringBuilder printCustomer(StringBuilder sb, Customer customer);
+
+
 	/**
 	 * Print collection of Customer objects into StringBuffer as lines with Customer attributes.
 	 * <pre>
@@ -57,6 +123,16 @@ public interface Printer {
 	public StringBuffer printCustomers(StringBuffer sb, Collection<Customer> customers);
 
 
+	/**
+	 * Print collection of Customer objects into an unsynchronized StringBuilder, see {@link #printCustomers(StringBuffer, Collection)}.
+	 * 
+	 * @param sb StringBuilder that will contains the formatted result. A new StringBuilder is created when sb is null.
+	 * @param customers collection of Customers (null argument is ignored).
+	 * @return StringBuilder that contains formatted result (same sb).
+	 */
+	public StringBuilder printCustomers(StringBuilder sb, Collection<Customer> customers);
+
+
 	/**
 	 * Print attributes of one Article object into StringBuffer as column-separated line.
 	 * <pre>
@@ -71,6 +147,16 @@ public interface Printer {
 	public StringBuffer printArticle(StringBuffer sb, Article article);
 
 
+	/**
+	 * Print attributes of one Article object into an unsynchronized StringBuilder, see {@link #printArticle(StringBuffer, Article)}.
+	 * 
+	 * @param sb StringBuilder that will contains the formatted result. A new StringBuilder is created when sb is null.
+	 * @param article Article object.
+	 * @return StringBuilder that contains formatted result (same sb).
+	 */
+	public StringBuilder printArticle(StringBuilder sb, Article article);
+
+
 	/**
 	 * Print collection of Article objects into StringBuffer as lines with Article attributes.
 	 * <pre>
@@ -87,6 +173,16 @@ public interface Printer {
 	public StringBuffer printArticles(StringBuffer sb, Collection<Article> articles);
 
 
+	/**
+	 * Print collection of Article objects into an unsynchronized StringBuilder, see {@link #printArticles(StringBuffer, Collection)}.
+	 * 
+	 * @param sb StringBuilder that will contains the formatted result. A new StringBuilder is created when sb is null.
+	 * @param articles collection of Articles (null argument is ignored).
+	 * @return StringBuilder that contains formatted result (same sb).
+	 */
+	public StringBuilder printArticles(StringBuilder sb, Collection<Article> articles);
+
+
 	/**
 	 * Print attributes of one Order object into StringBuffer as column-separated line.
 	 * <pre>
@@ -101,6 +197,16 @@ public interface Printer {
 	public StringBuffer printOrder(StringBuffer sb, Order order);
 
 
+	/**
+	 * Print attributes of one Order object into an unsynchronized StringBuilder, see {@link #printOrder(StringBuffer, Order)}.
+	 * 
+	 * @param sb StringBuilder that will contains the formatted result. A new StringBuilder is created when sb is null.
+	 * @param order Order object.
+	 * @return StringBuilder that contains formatted result (same sb).
+	 */
+	public StringBuilder printOrder(StringBuilder sb, Order order);
+
+
 	/**
 	 * Print collection of Order objects into StringBuffer as lines with Order attributes.
 	 * <pre>
@@ -118,6 +224,16 @@ public interface Printer {
 	public StringBuffer printOrders(StringBuffer sb, Collection<Order> orders);
 
 
+	/**
+	 * Print collection of Order objects into an unsynchronized StringBuilder, see {@link #printOrders(StringBuffer, Collection)}.
+	 * 
+	 * @param sb StringBuilder that will contains the formatted result. A new StringBuilder is created when sb is null.
+	 * @param orders collection of Orders (null argument is ignored).
+	 * @return StringBuilder that contains formatted result (same sb).
+	 */
+	public StringBuilder printOrders(StringBuilder sb, Collection<Order> orders);
+
+
 	/**
 	 * Print order into TablePrinter with order item separated lines.
 	 * <pre>
@@ -167,4 +283,32 @@ public interface Printer {
 	 */
 	public TablePrinter printOrders(TablePrinter orderTable, Collection<Order> orders);
 
+
+
+	/**
+	 * Print footer with net value, VAT tax and gross value per tax rate of a
+	 * collection of orders into TablePrinter, e.g. below {@link #printOrders(TablePrinter, Collection)}.
+	 * <pre>
+	 * Example:
+	 *             netto, MwSt 19%, brutto:               32.73�|    6.21�     38.94�|
+	 *             netto, MwSt 7%, brutto:                74.72�|    5.23�     79.95�|
+	 *                                                          +--------------------+
+	 * </pre>
+	 * 
+	 * @param orderTable to print breakdown into.
+	 * @param orders collection of orders, (null argument is ignored).
+	 * @return {@link TablePrinter} that contains formatted result.
+	 */
+	public TablePrinter printTaxBreakdown(TablePrinter orderTable, Collection<Order> orders);
+
+
+	/**
+	 * Return statistics of the cache of formatted customer names used when
+	 * printing customers and orders, e.g.
+	 * {@code "name cache: 9500 hits, 500 misses, hit rate 95.0%, 500/4096 customers"}.
+	 * 
+	 * @return hits, misses, hit rate and size of the name cache.
+	 */
+	public String nameCacheStats();
+
 }
@@ -86,9 +86,21 @@ public interface TablePrinter {
 	TablePrinter row(String... args);
 
 	/**
-	 * Output table to PrintStream.
+	 * Output table to PrintStream. A streaming table has already written its
+	 * rows to its destination and only flushes pending rows.
 	 * 
 	 * @param ps output destination.
 	 */
 	void print(PrintStream ps);
+
+	/**
+	 * Write pending rows of a streaming table to its destination and flush
+	 * the destination, no effect for tables collected in a StringBuffer.
+	 * 
+	 * @return chainable self-reference.
+	 * @throws java.io.UncheckedIOException when writing to the destination fails.
+	 */
+	default TablePrinter flush() {
+		return this;
+	}
 }
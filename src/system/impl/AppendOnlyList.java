@@ -0,0 +1,199 @@
+package system.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+
+/**
+ * Thread-safe list that only supports appending non-null elements. Elements
+ * are stored in chunks that double in size and are never copied, chunk
+ * {@code k} holds {@code firstChunk << k} elements.
+ * <p>
+ * Appends take no lock but block in slot order, they are not lock-free: an
+ * appending thread claims a slot by an atomic increment, stores its element
+ * and then publishes the size in slot order, advancing the size also past
+ * elements that slower threads have already stored. It returns only after
+ * the size covers its slot, so it waits (yielding) for threads that claimed
+ * lower slots and have not yet stored, e.g. because they were preempted
+ * between claim and store. In exchange, an element is visible to all
+ * threads when {@code add} returns. Reads never lock. A reader sees all
+ * elements appended before it read {@link #size()}, iterators are weakly
+ * consistent: they traverse the elements present when the iterator was
+ * created and never throw {@code ConcurrentModificationException}.
+ * </p>
+ *
+ * @param <E> element type.
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess {
+
+	/**
+	 * Default size of first chunk for large lists, small lists (e.g. orders
+	 * of one customer) should start with a small first chunk.
+	 */
+	static final int DEFAULT_FIRST_CHUNK = 1024;
+
+	/**
+	 * Number of chunks, enough for {@code Integer.MAX_VALUE} elements.
+	 */
+	private static final int CHUNKS = 32;
+
+	private static final VarHandle SIZE;
+	private static final VarHandle CLAIMED;
+	private static final VarHandle DIRECTORY;
+	private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final VarHandle CHUNK = MethodHandles.arrayElementVarHandle(Object[][].class);
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			SIZE = lookup.findVarHandle(AppendOnlyList.class, "size", int.class);
+			CLAIMED = lookup.findVarHandle(AppendOnlyList.class, "claimed", int.class);
+			DIRECTORY = lookup.findVarHandle(AppendOnlyList.class, "directory", Object[][].class);
+		} catch(ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Log2 of size of first chunk, first chunk is allocated with the list,
+	 * the directory of further chunks with the second chunk.
+	 */
+	private final int shift;
+	private final Object[] first;
+	private volatile Object[][] directory = null;
+
+	/**
+	 * Number of published elements and number of claimed slots.
+	 */
+	private volatile int size = 0;
+	private volatile int claimed = 0;
+
+
+	/**
+	 * Constructor of a list for many elements.
+	 */
+	AppendOnlyList() {
+		this(DEFAULT_FIRST_CHUNK);
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param firstChunk size of first chunk, power of two.
+	 * @throws IllegalArgumentException when firstChunk is not a positive power of two.
+	 */
+	AppendOnlyList(int firstChunk) {
+		if(firstChunk < 1 || Integer.bitCount(firstChunk) != 1)
+			throw new IllegalArgumentException("firstChunk: " + firstChunk);
+		//
+		this.shift = Integer.numberOfTrailingZeros(firstChunk);
+		this.first = new Object[firstChunk];
+	}
+
+
+	@Override
+	public boolean add(E e) {
+		if(e == null)
+			throw new NullPointerException("null element");
+		//
+		final int slot = (int)CLAIMED.getAndAdd(this, 1);
+		if(slot < 0)
+			throw new IllegalStateException("list is full");
+		final int k = chunkOf(slot);
+		SLOTS.setRelease(chunk(k, true), offset(slot, k), e);
+		int s;
+		while((s = size) <= slot) {	// publish in slot order, blocks on unstored lower slots
+			if(stored(s)) {
+				SIZE.compareAndSet(this, s, s + 1);
+			} else {
+				Thread.yield();		// thread that claimed slot s has not yet stored
+			}
+		}
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+		final int k = chunkOf(index);
+		return (E)SLOTS.getAcquire(chunk(k, false), offset(index, k));
+	}
+
+	@Override
+	public int size() { return size; }
+
+	@Override
+	public Iterator<E> iterator() {
+		final int end = size;
+		return new Iterator<E>() {
+			int i = 0;
+
+			@Override
+			public boolean hasNext() { return i < end; }
+
+			@Override
+			public E next() {
+				if(i >= end)
+					throw new NoSuchElementException();
+				return get(i++);
+			}
+		};
+	}
+
+
+	/*
+	 * Private methods to map indexes to chunks.
+	 */
+
+	private int chunkOf(int index) {
+		return 31 - Integer.numberOfLeadingZeros((index >>> shift) + 1);
+	}
+
+	private int offset(int index, int k) {
+		return index - (((1 << k) - 1) << shift);
+	}
+
+	/**
+	 * Return chunk k, allocates missing chunk if requested (racing threads
+	 * agree on one chunk by CAS), otherwise returns null for missing chunk.
+	 */
+	private Object[] chunk(int k, boolean create) {
+		if(k == 0)
+			return first;
+		Object[][] dir = directory;
+		if(dir == null) {
+			if(! create)
+				return null;
+			DIRECTORY.compareAndSet(this, null, new Object[CHUNKS][]);
+			dir = directory;
+		}
+		Object[] chunk = (Object[])CHUNK.getVolatile(dir, k);
+		if(chunk == null && create) {
+			final long length = Math.min(1L << (shift + k), Integer.MAX_VALUE - 8);
+			CHUNK.compareAndSet(dir, k, null, new Object[(int)length]);
+			chunk = (Object[])CHUNK.getVolatile(dir, k);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Return whether the element of a claimed slot has been stored.
+	 */
+	private boolean stored(int slot) {
+		final int k = chunkOf(slot);
+		final Object[] chunk = chunk(k, false);
+		return chunk != null && SLOTS.getAcquire(chunk, offset(slot, k)) != null;
+	}
+}
@@ -1,45 +1,206 @@
 package system.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 import datamodel.Order;
+import datamodel.OrderItem;
 import datamodel.TAX;
 import system.Calculator;
+import system.Calculator.TaxAmounts;
+import system.Calculator.Totals;
 
 
 class CalculatorImpl implements Calculator {
 	
 	/**
-	 * Applicable tax rate mapped from TAX enum.
+	 * Tax rate applied when no tax rate is given, German VAT tax (MwSt) 19.0%.
+	 */
+	private static final TAX DEFAULT_TAX = TAX.GER_VAT;
+
+	/**
+	 * Random access lists from this size on are aggregated in parallel, tasks
+	 * split index ranges of the list down to slices of {@code SLICE} orders.
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 15;
+	private static final int SLICE = 1 << 12;
+
+	/**
+	 * Tax rates indexed by ordinal.
+	 */
+	private static final TAX[] TAXES = TAX.values();
+
+	/**
+	 * Factory whose order item columns are scanned when aggregating over all
+	 * created orders, null for a calculator without factory.
 	 */
-	private final Map<TAX, Double> taxRateMapper = Map.of(
-		TAX.TAXFREE,			 0.0,	// tax free rate
-		TAX.GER_VAT,			19.0,	// German VAT tax (MwSt) 19.0%
-		TAX.GER_VAT_REDUCED,	 7.0	// German reduced VAT tax (MwSt) 7.0%
-	);
+	private final DatamodelFactoryImpl factory;
+
+
+	/**
+	 * Default constructor of a calculator without factory.
+	 */
+	CalculatorImpl() {
+		this(null);
+	}
+
+
+	/**
+	 * Constructor of a calculator that scans order item columns of a factory.
+	 * 
+	 * @param factory factory of orders, may be null.
+	 */
+	CalculatorImpl(DatamodelFactoryImpl factory) {
+		this.factory = factory;
+	}
 	
 	@Override
 	public double getTaxRate(TAX taxRate) {
-		return taxRate != null? taxRateMapper.get(taxRate) : 19.0;
+		return (taxRate != null? taxRate : DEFAULT_TAX).getRate();
 	}
 
 	@Override
 	public long calculateIncludedVAT(long grossValue, TAX tax) {
-		long vat = (long) Math.round((grossValue / ((getTaxRate(tax)/100)+1)) *  (getTaxRate(tax))/100);
-		return vat;
+		return (tax != null? tax : DEFAULT_TAX).includedVAT(grossValue);
 	}
 
 	@Override
 	public long[] calculateValueAndTax(Order order) {
-		long[] totals = {0L, 0L};
-		Optional.ofNullable(order).ifPresent(o -> o.getItems().forEach(item -> {
-			int units = item.getUnitsOrdered();
-			long unitPrice = item.getArticle().getUnitPrice();
-			long itemPrice = unitPrice * units;
-			long vat = calculateIncludedVAT(itemPrice, item.getArticle().getTax());
-			totals[0] += itemPrice;	// compound item price
-			totals[1] += vat;		// compound item tax	
-		}));
-		return totals;
+		return order != null?	// running totals maintained by order
+			new long[] {order.getTotalValue(), order.getTotalVAT()} : new long[] {0L, 0L};
+	}
+
+	@Override
+	public Totals calculateTotals(Collection<Order> orders) {
+		if(orders == null || orders.isEmpty())
+			return Totals.ZERO;
+		//
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		if(orders.size() < PARALLEL_THRESHOLD || pool.getParallelism() < 2 ||
+				! (orders instanceof List && orders instanceof RandomAccess)) {
+			int count = 0;
+			long value = 0L;
+			long vat = 0L;
+			for(Order order : orders) {
+				if(order != null) {
+					count++;
+					value += order.getTotalValue();
+					vat += order.getTotalVAT();
+				}
+			}
+			return new Totals(count, value, vat);
+		}
+		// split index range of list directly, orders appended later are not included
+		final List<Order> list = (List<Order>)orders;
+		return pool.invoke(new TotalsTask(list, 0, list.size()));
+	}
+
+	@Override
+	public Map<TAX, TaxAmounts> calculateTaxBreakdown(Order order) {
+		final long[] sums = new long[3 * TAXES.length];
+		if(order != null) {
+			accumulate(order, sums);
+		}
+		return breakdown(sums);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * When {@code orders} is the list returned by {@code getOrders()} of the
+	 * factory of this calculator (by identity, not a copy or view) and the
+	 * factory keeps the columnar mirror of order items, the breakdown is summed
+	 * over the mirror instead of walking orders and items.
+	 * </p>
+	 */
+	@Override
+	public Map<TAX, TaxAmounts> calculateTaxBreakdown(Collection<Order> orders) {
+		final long[] sums = new long[3 * TAXES.length];
+		final OrderItemColumns columns = factory != null? factory.itemColumns() : null;
+		if(columns != null && orders == factory.getOrders()) {
+			// all created orders: scan item columns instead of walking orders
+			columns.sumByTax(sums);
+		} else if(orders != null) {
+			for(Order order : orders) {
+				if(order != null) {
+					accumulate(order, sums);
+				}
+			}
+		}
+		return breakdown(sums);
+	}
+
+	/**
+	 * Add each order item to sums by tax ordinal {@code i}: {@code sums[3*i]}
+	 * is the gross value, {@code sums[3*i+1]} VAT and {@code sums[3*i+2]} the
+	 * number of items of the rate.
+	 */
+	private static void accumulate(Order order, long[] sums) {
+		for(OrderItem item : order.getItems()) {
+			final TAX tax = item.getArticle().getTax() != null? item.getArticle().getTax() : DEFAULT_TAX;
+			final long gross = item.getUnitsOrdered() * item.getArticle().getUnitPrice();
+			final int i = 3 * tax.ordinal();
+			sums[i] += gross;
+			sums[i + 1] += tax.includedVAT(gross);
+			sums[i + 2]++;
+		}
+	}
+
+	/**
+	 * Build unmodifiable breakdown from sums of rates with items.
+	 */
+	private static Map<TAX, TaxAmounts> breakdown(long[] sums) {
+		final EnumMap<TAX, TaxAmounts> map = new EnumMap<TAX, TaxAmounts>(TAX.class);
+		for(int t=0, i=0; t < TAXES.length; t++, i += 3) {
+			if(sums[i + 2] > 0) {
+				map.put(TAXES[t], new TaxAmounts(TAXES[t], sums[i], sums[i + 1]));
+			}
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * Fork/join task that compounds totals over an index range of a random
+	 * access order list.
+	 */
+	private static final class TotalsTask extends RecursiveTask<Totals> {
+		private static final long serialVersionUID = 1L;
+		private final List<Order> orders;
+		private final int from, to;
+
+		TotalsTask(List<Order> orders, int from, int to) {
+			this.orders = orders;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Totals compute() {
+			if(to - from <= SLICE) {
+				int count = 0;
+				long value = 0L;
+				long vat = 0L;
+				for(int i=from; i < to; i++) {
+					final Order order = orders.get(i);
+					if(order != null) {
+						count++;
+						value += order.getTotalValue();
+						vat += order.getTotalVAT();
+					}
+				}
+				return new Totals(count, value, vat);
+			}
+			final int mid = (from + to) >>> 1;
+			final TotalsTask left = new TotalsTask(orders, from, mid);
+			left.fork();
+			final Totals right = new TotalsTask(orders, mid, to).compute();
+			return left.join().plus(right);
+		}
 	}
 }
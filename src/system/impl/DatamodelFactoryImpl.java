@@ -1,9 +1,13 @@
 package system.impl;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import datamodel.ChangeListener;
 import datamodel.Customer;
 import datamodel.Article;
 import datamodel.Order;
+import datamodel.OrderItem;
 import system.DatamodelFactory;
 
 /**
@@ -15,12 +19,263 @@ import system.DatamodelFactory;
 
 class DatamodelFactoryImpl implements DatamodelFactory {
 
+	/**
+	 * Flag for a thread-safe factory that can be shared by concurrent threads.
+	 */
+	private final boolean concurrent;
+
 	/**
 	 * Internal lists of Customer, Article and Order objects.
 	 */
-	private final List<Customer> customers = new ArrayList<Customer>();
-	private final List<Article> articles = new ArrayList<Article>();
-	private final List<Order> orders = new ArrayList<Order>();
+	private final List<Customer> customers;
+	private final List<Article> articles;
+	private final List<Order> orders;
+
+	/**
+	 * Hash indexes over ids of created objects. Objects are indexed once an id
+	 * has been assigned, also when the id is set after creation. Customers are
+	 * indexed by primitive id without boxing.
+	 */
+	private final LongMap<Customer> customersById;
+	private final Map<String, Article> articlesById;
+	private final Map<String, Order> ordersById;
+
+	/**
+	 * Secondary index of orders by owning customer, maintained by {@link #createOrder(Customer)}.
+	 */
+	private final Map<Customer, List<Order>> ordersByCustomer;
+
+	/**
+	 * Reverse index from article to orders that contain it, each order mapped to
+	 * the number of its items referencing the article. Maintained by
+	 * {@link Order#addItem(Article, int)} and item deletion through the listener.
+	 */
+	private final Map<Article, Map<Order, Integer>> ordersByArticle;
+
+	/**
+	 * Sorted index of orders by creation date, orders with equal creation date
+	 * in order of indexing. Maintained by {@link #createOrder(Customer)} and
+	 * {@link Order#setCreationDate(long)} through the listener. Orders of one
+	 * date are immutable arrays replaced by {@code compute()}, updates of a
+	 * concurrent factory therefore do not lock and reads do not block.
+	 */
+	private final NavigableMap<Long, Order[]> ordersByDate;
+
+	/**
+	 * Columnar mirror of the items of created orders for analytics scans,
+	 * null when not enabled.
+	 */
+	private final OrderItemColumns itemColumns;
+
+	/**
+	 * Initial capacity of lists of orders of one customer.
+	 */
+	private static final int CUSTOMER_ORDERS = 2;
+
+	/**
+	 * Journal that records creations and changes of created objects, null
+	 * when not journaled.
+	 */
+	private volatile DatamodelJournalImpl journal = null;
+
+
+	/**
+	 * Default constructor of a factory for single-threaded use.
+	 */
+	DatamodelFactoryImpl() {
+		this(false);
+	}
+
+
+	/**
+	 * Constructor of a factory for single-threaded or concurrent use.
+	 * <p>
+	 * A concurrent factory stores objects in {@link AppendOnlyList}s and
+	 * indexes in {@link ConcurrentHashMap}s and a {@link ConcurrentSkipListMap},
+	 * appends take no lock but wait for concurrent appends of lower slots.
+	 * Creating objects is thread-safe,
+	 * reads and iterations over returned lists never block and never throw
+	 * {@code ConcurrentModificationException}. Individual objects are not
+	 * thread-safe and should be mutated by one thread at a time.
+	 * </p>
+	 * 
+	 * @param concurrent true for a thread-safe factory.
+	 */
+	DatamodelFactoryImpl(boolean concurrent) {
+		this(concurrent, false);
+	}
+
+
+	/**
+	 * Constructor of a factory for single-threaded or concurrent use with
+	 * optional columnar mirror of order items. The mirror speeds up tax
+	 * breakdowns over all created orders, but costs memory per order and
+	 * serializes item changes on its lock.
+	 * 
+	 * @param concurrent true for a thread-safe factory.
+	 * @param itemColumns true to keep a columnar mirror of order items.
+	 */
+	DatamodelFactoryImpl(boolean concurrent, boolean itemColumns) {
+		this.concurrent = concurrent;
+		this.itemColumns = itemColumns? new OrderItemColumns() : null;
+		this.customers = concurrent? new AppendOnlyList<Customer>() : new ArrayList<Customer>();
+		this.articles = concurrent? new AppendOnlyList<Article>() : new ArrayList<Article>();
+		this.orders = concurrent? new AppendOnlyList<Order>() : new ArrayList<Order>();
+		this.customersById = new LongMap<Customer>(concurrent);
+		this.articlesById = concurrent? new ConcurrentHashMap<String, Article>() : new HashMap<String, Article>();
+		this.ordersById = concurrent? new ConcurrentHashMap<String, Order>() : new HashMap<String, Order>();
+		this.ordersByCustomer = concurrent?
+			new ConcurrentHashMap<Customer, List<Order>>() : new IdentityHashMap<Customer, List<Order>>();
+		this.ordersByArticle = concurrent?
+			new ConcurrentHashMap<Article, Map<Order, Integer>>() : new IdentityHashMap<Article, Map<Order, Integer>>();
+		this.ordersByDate = concurrent?
+			new ConcurrentSkipListMap<Long, Order[]>() : new TreeMap<Long, Order[]>();
+	}
+
+
+	/**
+	 * Listener registered with created objects to keep id indexes in sync.
+	 */
+	private final ChangeListener indexer = new ChangeListener() {
+
+		@Override
+		public void idChanged(Customer customer, long previousId) {
+			customersById.remove(previousId, customer);
+			index(customer);
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.idChanged(customer, previousId);
+			}
+		}
+
+		@Override
+		public void idChanged(Article article, String previousId) {
+			if(previousId != null) {
+				articlesById.remove(previousId, article);
+			}
+			index(article);
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.idChanged(article, previousId);
+			}
+		}
+
+		@Override
+		public void idChanged(Order order, String previousId) {
+			if(previousId != null) {
+				ordersById.remove(previousId, order);
+			}
+			index(order);
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.idChanged(order, previousId);
+			}
+		}
+
+		@Override
+		public void itemAdded(Order order, OrderItem item) {
+			// compute() updates the inner map atomically per article in a concurrent factory
+			ordersByArticle.compute(item.getArticle(), (a, containing) -> {
+				containing = containing != null? containing : concurrent?
+					new ConcurrentHashMap<Order, Integer>() : new LinkedHashMap<Order, Integer>();
+				containing.merge(order, 1, Integer::sum);
+				return containing;
+			});
+			if(itemColumns != null) {
+				itemColumns.add(order, item);
+			}
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.itemAdded(order, item);
+			}
+		}
+
+		@Override
+		public void itemRemoved(Order order, OrderItem item) {
+			ordersByArticle.computeIfPresent(item.getArticle(), (a, containing) -> {
+				containing.computeIfPresent(order, (o, n) -> n > 1? n - 1 : null);
+				return containing.isEmpty()? null : containing;
+			});
+			if(itemColumns != null) {
+				itemColumns.remove(order, item);
+			}
+		}
+
+		@Override
+		public void itemRemoved(Order order, OrderItem item, int index) {
+			itemRemoved(order, item);
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.itemRemoved(order, item, index);
+			}
+		}
+
+		@Override
+		public void itemsCleared(Order order, List<OrderItem> removed) {
+			for(OrderItem item : removed) {
+				itemRemoved(order, item);
+			}
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {	// one record for all removed items
+				j.itemsCleared(order, removed);
+			}
+		}
+
+		@Override
+		public void unitsChanged(Order order, OrderItem item, int previousUnits) {
+			if(itemColumns != null) {
+				itemColumns.unitsChanged(order, item);
+			}
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.unitsChanged(order, item, previousUnits);
+			}
+		}
+
+		@Override
+		public void pricingChanged(Article article) {
+			if(itemColumns != null) {
+				itemColumns.pricingChanged(article);
+			}
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.pricingChanged(article);
+			}
+		}
+
+		@Override
+		public void descriptionChanged(Article article) {
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.descriptionChanged(article);
+			}
+		}
+
+		@Override
+		public void nameChanged(Customer customer) {
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.nameChanged(customer);
+			}
+		}
+
+		@Override
+		public void contactsChanged(Customer customer) {
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.contactsChanged(customer);
+			}
+		}
+
+		@Override
+		public void creationDateChanged(Order order, long previousDate) {
+			reindex(order, previousDate);
+			final DatamodelJournalImpl j = journal;
+			if(j != null) {
+				j.creationDateChanged(order, previousDate);
+			}
+		}
+	};
 
 
 	/**
@@ -117,9 +372,7 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	 * @return Optional with found object or empty Optional.
 	 */
 	public Optional<Customer> findCustomerById(long id) {
-		return customers.stream()
-			.filter(c -> c.getId()==id)
-			.findFirst();
+		return Optional.ofNullable(customersById.get(id));
 	}
 
 
@@ -130,9 +383,7 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	 * @return Optional with found object or empty Optional.
 	 */
 	public Optional<Article> findArticleById(String id) {
-		return articles.stream()
-			.filter(a -> a.getId().equals(id))
-			.findFirst();
+		return Optional.ofNullable(articlesById.get(id));
 	}
 
 
@@ -143,9 +394,7 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	 * @return Optional with found object or empty Optional.
 	 */
 	public Optional<Order> findOrderById(String id) {
-		return orders.stream()
-			.filter(o -> o.getId().equals(id))
-			.findFirst();
+		return Optional.ofNullable(ordersById.get(id));
 	}
 
 
@@ -157,22 +406,294 @@ class DatamodelFactoryImpl implements DatamodelFactory {
 	public int ordersCount() { return orders.size(); }
 
 
+	/**
+	 * Return orders owned by a customer in order of creation.
+	 * 
+	 * @param customer owning customer.
+	 * @return unmodifiable list of orders of customer, empty list if none.
+	 */
+	public List<Order> ordersOf(Customer customer) {
+		List<Order> list = customer != null? ordersByCustomer.get(customer) : null;
+		return list != null? Collections.unmodifiableList(list) : Collections.emptyList();
+	}
+
+
+	/**
+	 * Return orders owned by the customer with the given id in order of creation.
+	 * 
+	 * @param customerId id of owning customer.
+	 * @return unmodifiable list of orders of customer, empty list if none.
+	 */
+	public List<Order> ordersOfCustomerId(long customerId) {
+		return ordersOf(customersById.get(customerId));
+	}
+
+
+	/**
+	 * Return orders that contain at least one item of the article with the given id.
+	 * 
+	 * Orders are returned in the order the article was first added, in no
+	 * particular order by a concurrent factory.
+	 * 
+	 * @param articleId id of ordered article.
+	 * @return orders containing article, empty list if none.
+	 */
+	public List<Order> findOrdersContaining(String articleId) {
+		Article article = articlesById.get(articleId);
+		Map<Order, Integer> containing = article != null? ordersByArticle.get(article) : null;
+		return containing != null? new ArrayList<Order>(containing.keySet()) : Collections.emptyList();
+	}
+
+
+	/**
+	 * Return orders created in a time range, ordered by creation date and
+	 * orders with equal creation date in order of creation.
+	 * 
+	 * @param from start of range (inclusive) in milliseconds since 01/01/1970.
+	 * @param to end of range (exclusive) in milliseconds since 01/01/1970.
+	 * @return orders created in range, empty list if none.
+	 * @throws IllegalArgumentException when {@code from > to}.
+	 */
+	public List<Order> findOrdersCreatedBetween(long from, long to) {
+		if(from > to)
+			throw new IllegalArgumentException("from > to: " + from + " > " + to);
+		//
+		List<Order> found = new ArrayList<Order>();
+		for(Order[] created : ordersByDate.subMap(from, true, to, false).values()) {
+			Collections.addAll(found, created);
+		}
+		return found;
+	}
+
+
+	/**
+	 * Return the most recently created orders by creation date, latest first.
+	 * 
+	 * @param n maximum number of returned orders.
+	 * @return up to n latest orders, empty list if none.
+	 * @throws IllegalArgumentException when {@code n < 0}.
+	 */
+	public List<Order> findLatestOrders(int n) {
+		if(n < 0)
+			throw new IllegalArgumentException("n: " + n);
+		//
+		List<Order> found = new ArrayList<Order>(Math.min(n, 1024));
+		for(Iterator<Order[]> it = ordersByDate.descendingMap().values().iterator(); found.size() < n && it.hasNext(); ) {
+			Order[] created = it.next();
+			for(int i = created.length - 1; i >= 0 && found.size() < n; i--) {
+				found.add(created[i]);
+			}
+		}
+		return found;
+	}
+
+
+	/**
+	 * Return page of created customers, see {@link #ordersPage(String, int)}.
+	 * 
+	 * @param token resume token of previous page, null for first page.
+	 * @param size maximum number of customers in page.
+	 * @return page of customers in order of creation.
+	 * @throws IllegalArgumentException when token is invalid or {@code size < 1}.
+	 */
+	public Page<Customer> customersPage(String token, int size) {
+		return page("C", customers, token, size);
+	}
+
+
+	/**
+	 * Return page of created articles, see {@link #ordersPage(String, int)}.
+	 * 
+	 * @param token resume token of previous page, null for first page.
+	 * @param size maximum number of articles in page.
+	 * @return page of articles in order of creation.
+	 * @throws IllegalArgumentException when token is invalid or {@code size < 1}.
+	 */
+	public Page<Article> articlesPage(String token, int size) {
+		return page("A", articles, token, size);
+	}
+
+
+	/**
+	 * Return page of created orders in order of creation. The first page
+	 * fixes the view to the orders created so far, following pages resume
+	 * with the token of the previous page and never include orders created
+	 * later.
+	 * 
+	 * @param token resume token of previous page, null for first page.
+	 * @param size maximum number of orders in page.
+	 * @return page of orders in order of creation.
+	 * @throws IllegalArgumentException when token is invalid or {@code size < 1}.
+	 */
+	public Page<Order> ordersPage(String token, int size) {
+		return page("O", orders, token, size);
+	}
+
+
+	/**
+	 * Return point-in-time view of the customers, articles and orders created
+	 * so far. The view is taken in O(1) without copying or locking: it records
+	 * the sizes of the internal lists and opens an items version, which is
+	 * closed when the view becomes unreachable. Objects created later are not
+	 * part of it.
+	 * 
+	 * @return immutable view of created objects.
+	 */
+	public Snapshot snapshot() {
+		final long version = Order.openItemsVersion();
+		// orders first: customers of orders in the view were added before their orders
+		int o = orders.size();
+		int a = articles.size();
+		int c = customers.size();
+		return new Snapshot(new PrefixList<Customer>(customers, c),
+			new PrefixList<Article>(articles, a), new OrderViewList(new PrefixList<Order>(orders, o), version));
+	}
+
+
+	/**
+	 * Return columnar mirror of the items of created orders.
+	 * 
+	 * @return order item columns kept in sync with created orders, null when not enabled.
+	 */
+	OrderItemColumns itemColumns() { return itemColumns; }
+
+
+	/**
+	 * Attach journal that records creations and changes of created objects.
+	 * 
+	 * @param journal journal to record to, null detaches journal.
+	 */
+	void journal(DatamodelJournalImpl journal) { this.journal = journal; }
+
+
 	/*
-	 * Private methods to add objects to internal lists.
+	 * Private methods to add objects to internal lists and indexes. Creations
+	 * are journaled and the listener is registered before an object is
+	 * published in lists and indexes, so no change can be missed.
 	 */
 
 	private Customer add(Customer customer) {
+		final DatamodelJournalImpl j = journal;
+		if(j != null) {
+			j.created(customer);
+		}
+		customer.setChangeListener(indexer);
 		customers.add(customer);
+		index(customer);
 		return customer;
 	}
 
 	private Article add(Article article) {
+		final DatamodelJournalImpl j = journal;
+		if(j != null) {
+			j.created(article);
+		}
+		article.setChangeListener(indexer);
 		articles.add(article);
+		index(article);
 		return article;
 	}
 
 	private Order add(Order order) {
+		final DatamodelJournalImpl j = journal;
+		if(j != null) {
+			j.created(order);
+		}
+		order.setChangeListener(indexer);
 		orders.add(order);
+		ordersByCustomer.computeIfAbsent(order.getCustomer(),
+			c -> concurrent? new AppendOnlyList<Order>(CUSTOMER_ORDERS) : new ArrayList<Order>(CUSTOMER_ORDERS)).add(order);
+		index(order);
+		reindex(order, null);
 		return order;
 	}
+
+	/**
+	 * Return page of an internal list. Lists only grow, a token
+	 * {@code "<type>:<position>:<end>"} therefore resumes at a stable position
+	 * in a view limited to the elements that existed when the first page was
+	 * returned.
+	 */
+	private static <T> Page<T> page(String type, List<T> list, String token, int size) {
+		if(size < 1)
+			throw new IllegalArgumentException("page size: " + size);
+		//
+		int from = 0;
+		int end = list.size();
+		if(token != null) {
+			String[] parts = token.split(":");
+			try {
+				if(parts.length != 3 || ! parts[0].equals(type))
+					throw new NumberFormatException();
+				from = Integer.parseInt(parts[1]);
+				end = Integer.parseInt(parts[2]);
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("invalid page token: \"" + token + "\"");
+			}
+			if(from < 0 || from > end || end > list.size())
+				throw new IllegalArgumentException("invalid page token: \"" + token + "\"");
+		}
+		int to = (int)Math.min((long)from + size, end);
+		List<T> items = new ArrayList<T>(to - from);
+		for(int i = from; i < to; i++) {
+			items.add(list.get(i));
+		}
+		return new Page<T>(items, to < end? type + ":" + to + ":" + end : null);
+	}
+
+	/**
+	 * Move order in creation date index from previous to current creation date.
+	 * The remapping functions have no side effects, {@code compute()} of a
+	 * {@link ConcurrentSkipListMap} may retry them.
+	 */
+	private void reindex(Order order, Long previousDate) {
+		if(previousDate != null) {
+			ordersByDate.computeIfPresent(previousDate, (d, created) -> {
+				for(int i=0; i < created.length; i++) {
+					if(created[i] == order) {
+						if(created.length == 1)
+							return null;
+						Order[] rest = new Order[created.length - 1];
+						System.arraycopy(created, 0, rest, 0, i);
+						System.arraycopy(created, i + 1, rest, i, rest.length - i);
+						return rest;
+					}
+				}
+				return created;
+			});
+		}
+		ordersByDate.compute(order.getCreationDate(), (d, created) -> {
+			if(created == null)
+				return new Order[] {order};
+			Order[] grown = Arrays.copyOf(created, created.length + 1);
+			grown[created.length] = order;
+			return grown;
+		});
+	}
+
+	/*
+	 * Private methods to index objects with assigned ids, first object wins
+	 * for duplicate ids.
+	 */
+
+	private void index(Customer customer) {
+		long id = customer.getIdAsLong();
+		if(id >= 0) {
+			customersById.putIfAbsent(id, customer);
+		}
+	}
+
+	private void index(Article article) {
+		String id = article.getId();
+		if(id != null && id.length() > 0) {
+			articlesById.putIfAbsent(id, article);
+		}
+	}
+
+	private void index(Order order) {
+		String id = order.getId();
+		if(id != null) {
+			ordersById.putIfAbsent(id, order);
+		}
+	}
 }
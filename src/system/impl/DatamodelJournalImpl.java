@@ -0,0 +1,1014 @@
+package system.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import datamodel.Article;
+import datamodel.ChangeListener;
+import datamodel.Currency;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+import system.DatamodelFactory;
+import system.DatamodelJournal;
+
+
+/**
+ * Append-only journal of create calls of {@link DatamodelFactoryImpl} and of
+ * mutating calls on created objects, which the factory forwards as
+ * {@link ChangeListener} events.
+ * <p>
+ * Records carry the resulting state of a change (e.g. all contacts of a
+ * customer), removals of items are recorded as the index of the removed
+ * item or as one record for all items of an order. Records refer to
+ * objects by creation sequence number per type, which
+ * equals the position in the factory lists after replay. Customers and
+ * articles that were not created by the factory are journaled when first
+ * referenced and are created by the factory on replay. A record is framed
+ * as {@code int length, body, int CRC32 of body}. Replay stops at the first
+ * incomplete or corrupt record (torn write of a crash) and truncates it.
+ * </p><p>
+ * Mutating threads encode records into a pending buffer under the journal
+ * lock. A writer thread swaps the pending buffer with a spare buffer, writes
+ * the batch and forces it according to the {@link DatamodelJournal.Fsync} policy.
+ * With {@code ALWAYS}, mutating threads wait until their record is forced and
+ * all threads waiting for the same batch share one force (group commit).
+ * </p><p>
+ * A checkpoint bounds replay time. The writer thread seals the journal file
+ * as {@code <file>.sealed} between two batches and continues with a new file
+ * of the next generation. The checkpoint thread then loads the previous
+ * checkpoint {@code <file>.checkpoint} into a private factory, replays the
+ * sealed file, writes the result as new checkpoint that records the sealed
+ * generation and deletes the sealed file. Live objects are never read, so
+ * creating and mutating threads are not blocked. Recovery loads the
+ * checkpoint and replays the sealed file (when the checkpoint does not yet
+ * include it) and the live file.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+class DatamodelJournalImpl implements DatamodelJournal, ChangeListener {
+
+	/**
+	 * File header: magic number "SE1J", version, generation of journal file.
+	 */
+	static final int MAGIC = 0x5345314A;
+	static final int VERSION = 1;
+	static final int HEADER = 12;
+
+	/**
+	 * Default size of live journal file that triggers a checkpoint.
+	 */
+	static final long DEFAULT_CHECKPOINT_BYTES = 64L << 20;
+
+	/**
+	 * Record types.
+	 */
+	private static final byte CUSTOMER_CREATED = 1;		// str first, str last
+	private static final byte CUSTOMER_ID = 2;			// int seq, long id
+	private static final byte CUSTOMER_NAME = 3;		// int seq, str first, str last
+	private static final byte CUSTOMER_CONTACTS = 4;	// int seq, int n, n * str contact
+	private static final byte ARTICLE_CREATED = 5;		// str id, str description, long price, byte currency, byte tax
+	private static final byte ARTICLE_ID = 6;			// int seq, str id
+	private static final byte ARTICLE_DESCRIPTION = 7;	// int seq, str description
+	private static final byte ARTICLE_PRICING = 8;		// int seq, long price, byte currency, byte tax
+	private static final byte ORDER_CREATED = 9;		// int customer seq, long creationDate
+	private static final byte ORDER_ID = 10;			// int seq, str id
+	private static final byte ORDER_DATE = 11;			// int seq, long creationDate
+	private static final byte ITEM_ADDED = 12;			// int order seq, int article seq, int units
+	private static final byte ITEM_UNITS = 13;			// int order seq, int item index, int units
+	private static final byte ITEM_REMOVED = 14;		// int order seq, int item index
+	private static final byte ITEMS_CLEARED = 15;		// int order seq
+
+	/**
+	 * Initial size of record buffers, pending records beyond the maximum
+	 * make mutating threads wait for the writer.
+	 */
+	private static final int INITIAL_BUFFER = 1 << 16;
+	private static final int MAX_PENDING = 1 << 26;
+
+	private static final Currency[] CURRENCIES = Currency.values();
+	private static final TAX[] TAXES = TAX.values();
+
+	/**
+	 * Recovery rates assumed until measured, for checkpoint loading and for
+	 * replay of journal records.
+	 */
+	private static final double DEFAULT_NANOS_PER_BYTE = 100.0;
+	private static final double DEFAULT_NANOS_PER_RECORD = 2000.0;
+
+	private final Path file;
+	private final Path sealed;
+	private final Path checkpointFile;
+	private final Fsync fsync;
+	private final long checkpointBytes;
+	private final DatamodelSnapshotImpl snapshot = new DatamodelSnapshotImpl();
+
+	/**
+	 * Live journal file and its generation, the channel is replaced by the
+	 * writer thread when sealing the file.
+	 */
+	private FileChannel ch;
+	private int generation;
+	private long liveBytes = 0L;	// written to live file, writer thread only
+
+	/**
+	 * Creation sequence numbers of journaled objects.
+	 */
+	private final Map<Customer, Integer> customers = new IdentityHashMap<Customer, Integer>();
+	private final Map<Article, Integer> articles = new IdentityHashMap<Article, Integer>();
+	private final Map<Order, Integer> orders = new IdentityHashMap<Order, Integer>();
+
+	/**
+	 * Pending records filled by mutating threads and spare buffer returned by
+	 * the writer thread, both guarded by the journal lock.
+	 */
+	private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER);
+	private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER);
+	private final CRC32 crc = new CRC32();
+	private int recordStart = 0;	// of record being encoded
+
+	/**
+	 * Number of appended records, of records written and forced, whether
+	 * {@link #sync()} or {@link #close()} requested a force, whether a seal was
+	 * requested and whether the writer thread is sealing.
+	 */
+	private long appended = 0L;
+	private long durable = 0L;
+	private boolean forceRequested = false;
+	private boolean sealRequested = false;
+	private boolean sealing = false;
+
+	/**
+	 * Records in live and sealed file, size of checkpoint file and measured
+	 * recovery rates for the recovery time estimate.
+	 */
+	private long liveRecords = 0L;
+	private long sealedRecords = 0L;
+	private long checkpointSize = 0L;
+	private double nanosPerByte = DEFAULT_NANOS_PER_BYTE;
+	private double nanosPerRecord = DEFAULT_NANOS_PER_RECORD;
+	private long checkpoints = 0L;
+
+	/**
+	 * Lock that serializes checkpoints, checkpoint thread started by the writer
+	 * thread (guarded by the journal lock).
+	 */
+	private final Object checkpointLock = new Object();
+	private Thread checkpointer = null;
+
+	/**
+	 * Failure of the last checkpoint started by the writer thread, thrown by
+	 * the next {@link #checkpoint()} or {@link #close()}.
+	 */
+	private volatile IOException checkpointFailure = null;
+
+	private boolean closed = false;
+	private IOException failure = null;
+	private Thread writer = null;
+	private DatamodelFactoryImpl factory = null;
+
+	private long replayedRecords = 0L;
+	private long replayNanos = 0L;
+
+
+	/**
+	 * Constructor, opens or creates journal file with default checkpoint size.
+	 *
+	 * @param file journal file.
+	 * @param fsync policy when records are forced.
+	 * @throws IOException when file cannot be opened or is not a journal.
+	 */
+	DatamodelJournalImpl(Path file, Fsync fsync) throws IOException {
+		this(file, fsync, DEFAULT_CHECKPOINT_BYTES);
+	}
+
+
+	/**
+	 * Constructor, opens or creates journal file.
+	 *
+	 * @param file journal file.
+	 * @param fsync policy when records are forced.
+	 * @param checkpointBytes size of live journal file that triggers a checkpoint, {@code 0} for none.
+	 * @throws IOException when file cannot be opened or is not a journal.
+	 */
+	DatamodelJournalImpl(Path file, Fsync fsync, long checkpointBytes) throws IOException {
+		if(checkpointBytes < 0)
+			throw new IllegalArgumentException("checkpointBytes: " + checkpointBytes);
+		//
+		this.file = file;
+		this.sealed = file.resolveSibling(file.getFileName() + ".sealed");
+		this.checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+		this.fsync = fsync;
+		this.checkpointBytes = checkpointBytes;
+		this.ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if(ch.size() < HEADER) {
+			int g = Files.exists(checkpointFile)? DatamodelSnapshotImpl.generation(checkpointFile) : 0;
+			if(Files.exists(sealed)) {
+				try(FileChannel s = FileChannel.open(sealed, StandardOpenOption.READ)) {
+					g = Math.max(g, generation(s, sealed));
+				}
+			}
+			ch.truncate(0L);	// new file or crash while creating
+			ch.write(header(g + 1), 0L);
+			ch.force(true);
+		}
+		this.generation = generation(ch, file);
+	}
+
+
+	/**
+	 * Load checkpoint and replay journal into factory, truncate an incomplete
+	 * last record and start recording mutations of the factory and its objects.
+	 *
+	 * @param factory empty factory to recover.
+	 * @return number of replayed records.
+	 * @throws IOException when reading fails or files are not a journal.
+	 */
+	long recover(DatamodelFactoryImpl factory) throws IOException {
+		final long start = System.nanoTime();
+		int included = 0;
+		if(Files.exists(checkpointFile)) {
+			included = DatamodelSnapshotImpl.generation(checkpointFile);
+			snapshot.read(checkpointFile, factory);
+			checkpointSize = Files.size(checkpointFile);
+		}
+		final long loaded = System.nanoTime();
+		boolean includedSealed = false;
+		if(Files.exists(sealed)) {
+			try(FileChannel s = FileChannel.open(sealed, StandardOpenOption.READ)) {
+				includedSealed = generation(s, sealed) <= included;
+				if(! includedSealed) {
+					sealedRecords = replay(s, sealed, factory)[1];
+				}
+			}
+		}
+		if(includedSealed) {
+			Files.delete(sealed);	// crash after checkpoint was written
+		}
+		final long[] live = replay(ch, file, factory);
+		if(live[0] < ch.size()) {
+			ch.truncate(live[0]);	// torn write of last record
+			ch.force(true);
+		}
+		ch.position(live[0]);
+		liveRecords = live[1];
+		replayedRecords = sealedRecords + liveRecords;
+		final long end = System.nanoTime();
+		replayNanos = end - start;
+		measured(checkpointSize, loaded - start, replayedRecords, end - loaded);
+		//
+		synchronized(this) {
+			for(Customer c : factory.getCustomers()) {
+				customers.put(c, customers.size());
+			}
+			for(Article a : factory.getArticles()) {
+				articles.put(a, articles.size());
+			}
+			for(Order o : factory.getOrders()) {
+				orders.put(o, orders.size());
+			}
+		}
+		this.factory = factory;
+		factory.journal(this);
+		writer = new Thread(this::write, "datamodel-journal");
+		writer.setDaemon(true);
+		writer.start();
+		return replayedRecords;
+	}
+
+
+	@Override
+	public Path getFile() { return file; }
+
+	@Override
+	public Fsync getFsync() { return fsync; }
+
+	@Override
+	public synchronized long getRecordCount() { return appended; }
+
+	@Override
+	public long getReplayedRecords() { return replayedRecords; }
+
+	@Override
+	public long getReplayNanos() { return replayNanos; }
+
+	@Override
+	public Path getCheckpointFile() { return checkpointFile; }
+
+	@Override
+	public synchronized long getCheckpointCount() { return checkpoints; }
+
+	@Override
+	public synchronized long getEstimatedRecoveryNanos() {
+		return (long)(checkpointSize * nanosPerByte + (sealedRecords + liveRecords) * nanosPerRecord);
+	}
+
+
+	@Override
+	public void checkpoint() throws IOException {
+		final IOException e = checkpointFailure;
+		if(e != null) {
+			checkpointFailure = null;
+			throw new IOException("checkpoint of journal " + file + " failed", e);
+		}
+		if(! writeCheckpoint())
+			throw new IOException("journal closed: " + file);
+	}
+
+	/**
+	 * Seal the live file if no sealed file is left, replay the sealed file onto
+	 * the last checkpoint into a new checkpoint and delete the sealed file.
+	 *
+	 * @return false when the journal was closed before the live file was sealed.
+	 */
+	private boolean writeCheckpoint() throws IOException {
+		synchronized(checkpointLock) {
+			if(! Files.exists(sealed) && ! seal())
+				return false;
+			final long start = System.nanoTime();
+			final DatamodelFactoryImpl shadow = new DatamodelFactoryImpl();
+			int included = 0;
+			long size = 0L;
+			if(Files.exists(checkpointFile)) {
+				included = DatamodelSnapshotImpl.generation(checkpointFile);
+				snapshot.read(checkpointFile, shadow);
+				size = Files.size(checkpointFile);
+			}
+			final long loaded = System.nanoTime();
+			final int g;
+			long records = 0L;
+			try(FileChannel s = FileChannel.open(sealed, StandardOpenOption.READ)) {
+				g = generation(s, sealed);
+				if(g > included) {
+					records = replay(s, sealed, shadow)[1];
+				}
+			}
+			final long replayed = System.nanoTime();
+			final long written = snapshot.write(shadow, checkpointFile, Math.max(g, included));
+			Files.delete(sealed);
+			synchronized(this) {
+				measured(size, loaded - start, records, replayed - loaded);
+				checkpointSize = written;
+				sealedRecords = 0L;
+				checkpoints++;
+			}
+			return true;
+		}
+	}
+
+
+	@Override
+	public void sync() throws IOException {
+		synchronized(this) {
+			final long lsn = appended;
+			if(durable < lsn) {
+				forceRequested = true;
+				notifyAll();
+			}
+			awaitDurable(lsn);
+		}
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		final Thread w;
+		final Thread c;
+		synchronized(this) {
+			if(closed)
+				return;
+			closed = true;
+			forceRequested = true;
+			w = writer;
+			c = checkpointer;
+			notifyAll();
+		}
+		if(factory != null) {
+			factory.journal(null);
+		}
+		try {
+			if(w != null) {
+				w.join();
+			}
+			if(c != null) {
+				c.join();	// report its failure below
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			ch.close();
+		}
+		synchronized(this) {
+			if(failure != null)
+				throw failure;
+		}
+		final IOException e = checkpointFailure;
+		if(e != null) {
+			checkpointFailure = null;
+			throw new IOException("checkpoint of journal " + file + " failed", e);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("journal %s (fsync %s): %d records appended, %d replayed in %.1f ms (%.0f records/s), "
+			+ "%d checkpoints, estimated recovery %.1f ms",
+			file, fsync, getRecordCount(), replayedRecords, replayNanos / 1e6,
+			replayNanos > 0? replayedRecords * 1e9 / replayNanos : 0.0,
+			getCheckpointCount(), getEstimatedRecoveryNanos() / 1e6);
+	}
+
+
+	/*
+	 * Records of create calls, invoked by the factory.
+	 */
+
+	synchronized void created(Customer customer) {
+		seq(customer);
+	}
+
+	synchronized void created(Article article) {
+		seq(article);
+	}
+
+	synchronized void created(Order order) {
+		final int c = seq(order.getCustomer());
+		orders.put(order, orders.size());
+		begin(ORDER_CREATED).putInt(c).putLong(order.getCreationDate());
+		commit();
+	}
+
+
+	/*
+	 * Records of mutating calls, forwarded by the factory listener.
+	 */
+
+	@Override
+	public synchronized void idChanged(Customer customer, long previousId) {
+		final Integer seq = customers.get(customer);
+		if(seq != null) {
+			begin(CUSTOMER_ID).putInt(seq).putLong(customer.getIdAsLong());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void nameChanged(Customer customer) {
+		final Integer seq = customers.get(customer);
+		if(seq != null) {
+			putString(putString(begin(CUSTOMER_NAME).putInt(seq), customer.getFirstName()), customer.getLastName());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void contactsChanged(Customer customer) {
+		final Integer seq = customers.get(customer);
+		if(seq != null) {
+			putContacts(begin(CUSTOMER_CONTACTS).putInt(seq), customer);
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void idChanged(Article article, String previousId) {
+		final Integer seq = articles.get(article);
+		if(seq != null) {
+			putString(begin(ARTICLE_ID).putInt(seq), article.getId());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void descriptionChanged(Article article) {
+		final Integer seq = articles.get(article);
+		if(seq != null) {
+			putString(begin(ARTICLE_DESCRIPTION).putInt(seq), article.getDescription());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void pricingChanged(Article article) {
+		final Integer seq = articles.get(article);
+		if(seq != null) {
+			putPricing(begin(ARTICLE_PRICING).putInt(seq), article);
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void idChanged(Order order, String previousId) {
+		final Integer seq = orders.get(order);
+		if(seq != null) {
+			putString(begin(ORDER_ID).putInt(seq), order.getId());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void creationDateChanged(Order order, long previousDate) {
+		final Integer seq = orders.get(order);
+		if(seq != null) {
+			begin(ORDER_DATE).putInt(seq).putLong(order.getCreationDate());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void itemAdded(Order order, OrderItem item) {
+		final Integer seq = orders.get(order);
+		if(seq != null) {
+			final int a = seq(item.getArticle());
+			begin(ITEM_ADDED).putInt(seq).putInt(a).putInt(item.getUnitsOrdered());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void unitsChanged(Order order, OrderItem item, int previousUnits) {
+		final Integer seq = orders.get(order);
+		if(seq != null) {
+			int index = 0;
+			for(OrderItem i : order.getItems()) {
+				if(i == item)
+					break;
+				index++;
+			}
+			begin(ITEM_UNITS).putInt(seq).putInt(index).putInt(item.getUnitsOrdered());
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void itemRemoved(Order order, OrderItem item, int index) {
+		final Integer seq = orders.get(order);
+		if(seq != null) {
+			begin(ITEM_REMOVED).putInt(seq).putInt(index);
+			commit();
+		}
+	}
+
+	@Override
+	public synchronized void itemsCleared(Order order, List<OrderItem> removed) {
+		final Integer seq = orders.get(order);
+		if(seq != null) {
+			begin(ITEMS_CLEARED).putInt(seq);
+			commit();
+		}
+	}
+
+
+	/*
+	 * Private methods to encode records, invoked with journal lock held.
+	 */
+
+	/**
+	 * Return sequence number of customer, a customer not yet journaled (not
+	 * created by the factory) is journaled as created.
+	 */
+	private int seq(Customer customer) {
+		Integer seq = customers.get(customer);
+		if(seq == null) {
+			seq = customers.size();
+			customers.put(customer, seq);
+			putString(putString(begin(CUSTOMER_CREATED), customer.getFirstName()), customer.getLastName());
+			commit();
+			if(customer.getIdAsLong() >= 0) {
+				idChanged(customer, -1L);
+			}
+			if(customer.contactsCount() > 0) {
+				contactsChanged(customer);
+			}
+		}
+		return seq;
+	}
+
+	/**
+	 * Return sequence number of article, an article not yet journaled (not
+	 * created by the factory) is journaled as created.
+	 */
+	private int seq(Article article) {
+		Integer seq = articles.get(article);
+		if(seq == null) {
+			seq = articles.size();
+			articles.put(article, seq);
+			final ByteBuffer b = putString(begin(ARTICLE_CREATED), article.getId());
+			putPricing(putString(b, article.getDescription()), article);
+			commit();
+		}
+		return seq;
+	}
+
+	private ByteBuffer putPricing(ByteBuffer b, Article article) {
+		return b.putLong(article.getUnitPrice())
+			.put((byte)(article.getCurrency() != null? article.getCurrency().ordinal() : -1))
+			.put((byte)(article.getTax() != null? article.getTax().ordinal() : -1));
+	}
+
+	private ByteBuffer putContacts(ByteBuffer b, Customer customer) {
+		final String[] contacts = customer.getContacts();
+		b.putInt(contacts.length);
+		for(String contact : contacts) {
+			b = putString(b, contact);
+		}
+		return b;
+	}
+
+
+	/**
+	 * Start record in pending buffer, reserves the length field.
+	 */
+	private ByteBuffer begin(byte type) {
+		if(failure != null)
+			throw new UncheckedIOException("journal " + file + " failed", failure);
+		while(pending.position() > MAX_PENDING && ! closed && failure == null) {
+			awaitWriter();	// back pressure
+		}
+		recordStart = ensure(5).position();
+		return pending.putInt(0).put(type);
+	}
+
+	private ByteBuffer putString(ByteBuffer b, String s) {
+		if(s == null) {
+			return ensure(4).putInt(-1);
+		}
+		final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		return ensure(bytes.length + 4).putInt(bytes.length).put(bytes);
+	}
+
+	/**
+	 * Return pending buffer with room for n more bytes and CRC, grows buffer.
+	 */
+	private ByteBuffer ensure(int n) {
+		if(pending.remaining() < n + 64) {
+			final ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + n + 64));
+			pending.flip();
+			pending = grown.put(pending);
+		}
+		return pending;
+	}
+
+	/**
+	 * Complete record started by {@link #begin(byte)}: patch length and
+	 * append CRC32 of body, wait until forced with policy {@code ALWAYS}.
+	 * Records after close are discarded.
+	 */
+	private void commit() {
+		if(closed) {
+			pending.position(recordStart);
+			return;
+		}
+		final int length = pending.position() - recordStart - 4;
+		pending.putInt(recordStart, length);
+		crc.reset();
+		crc.update(pending.array(), pending.arrayOffset() + recordStart + 4, length);
+		pending.putInt((int)crc.getValue());
+		final long lsn = ++appended;
+		liveRecords++;
+		notifyAll();
+		if(fsync == Fsync.ALWAYS) {
+			try {
+				awaitDurable(lsn);
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+
+	/*
+	 * Writer thread, waiting is done with journal lock held.
+	 */
+
+	private void awaitDurable(long lsn) throws IOException {
+		while(durable < lsn && failure == null && writer != null && writer.isAlive()) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted waiting for journal " + file);
+			}
+		}
+		if(failure != null)
+			throw new IOException("journal " + file + " failed", failure);
+	}
+
+	private void awaitWriter() {
+		try {
+			wait();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("interrupted waiting for journal " + file));
+		}
+	}
+
+	/**
+	 * Loop of writer thread: swap pending and spare buffer, write batch and
+	 * force it, notify threads waiting for the batch, seal the live file when
+	 * requested. Ends after close when all records are written or when
+	 * writing failed.
+	 */
+	private void write() {
+		for(;;) {
+			final ByteBuffer batch;
+			final long lsn;
+			final boolean force, last, seal;
+			synchronized(this) {
+				while(pending.position() == 0 && ! closed && ! forceRequested && ! sealRequested) {
+					try {
+						wait();
+					} catch(InterruptedException e) {
+						closed = true;
+					}
+				}
+				batch = pending;
+				pending = spare;
+				spare = null;
+				lsn = appended;
+				seal = sealRequested && ! closed;
+				force = fsync != Fsync.NEVER || forceRequested || closed || seal;
+				forceRequested = false;
+				last = closed;
+				if(seal) {
+					sealing = true;
+					sealedRecords += liveRecords;	// records up to lsn go to sealed file
+					liveRecords = 0L;
+				}
+			}
+			try {
+				batch.flip();
+				liveBytes += batch.remaining();
+				while(batch.hasRemaining()) {
+					ch.write(batch);
+				}
+				if(force) {
+					ch.force(false);
+				}
+				if(seal) {
+					ch.close();
+					Files.move(file, sealed, StandardCopyOption.ATOMIC_MOVE);
+					final FileChannel next = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.READ, StandardOpenOption.WRITE);
+					next.write(header(generation + 1), 0L);
+					next.force(true);
+					next.position(HEADER);
+					ch = next;
+					liveBytes = 0L;
+				}
+			} catch(IOException e) {
+				synchronized(this) {
+					failure = e;
+					notifyAll();
+				}
+				return;
+			}
+			synchronized(this) {
+				batch.clear();
+				spare = batch.capacity() > MAX_PENDING? ByteBuffer.allocate(INITIAL_BUFFER) : batch;
+				if(force) {
+					durable = lsn;
+				}
+				if(seal) {
+					sealRequested = false;
+					sealing = false;
+					generation++;
+				}
+				notifyAll();
+				if(last && pending.position() == 0)
+					return;
+			}
+			if(checkpointBytes > 0 && liveBytes >= checkpointBytes) {
+				startCheckpoint();
+			}
+		}
+	}
+
+	/**
+	 * Request the writer thread to seal the live file and wait until sealed,
+	 * the writer thread no longer starts sealing after close.
+	 *
+	 * @return false when the journal was closed before the live file was sealed.
+	 */
+	private synchronized boolean seal() throws IOException {
+		if(writer == null)
+			throw new IOException("journal not open: " + file);
+		final int g = generation;
+		sealRequested = true;
+		notifyAll();
+		while(generation == g && failure == null && (sealing || ! closed) && writer.isAlive()) {
+			try {
+				wait();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted waiting for journal " + file);
+			}
+		}
+		if(failure != null)
+			throw new IOException("journal " + file + " failed", failure);
+		return generation != g;
+	}
+
+	/**
+	 * Start checkpoint thread unless a checkpoint is running.
+	 */
+	private void startCheckpoint() {
+		synchronized(this) {
+			if(closed || (checkpointer != null && checkpointer.isAlive()))
+				return;
+			checkpointer = new Thread(() -> {
+				try {
+					writeCheckpoint();	// close before sealing is no failure
+				} catch(IOException e) {
+					checkpointFailure = e;
+				}
+			}, "datamodel-checkpoint");
+			checkpointer.setDaemon(true);
+			checkpointer.start();
+		}
+	}
+
+	/**
+	 * Update recovery rates from a checkpoint load and replay, small samples are ignored.
+	 */
+	private void measured(long bytes, long loadNanos, long records, long replayNanos) {
+		if(bytes >= 1 << 16) {
+			nanosPerByte = (double)loadNanos / bytes;
+		}
+		if(records >= 1000) {
+			nanosPerRecord = (double)replayNanos / records;
+		}
+	}
+
+
+	/*
+	 * Replay.
+	 */
+
+	private static ByteBuffer header(int generation) {
+		return ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).putInt(generation).flip();
+	}
+
+	/**
+	 * Read header of journal file.
+	 *
+	 * @return generation of journal file.
+	 */
+	private static int generation(FileChannel ch, Path file) throws IOException {
+		final ByteBuffer header = ByteBuffer.allocate(HEADER);
+		while(header.hasRemaining() && ch.read(header, header.position()) >= 0) { }
+		if(header.position() < HEADER || header.getInt(0) != MAGIC)
+			throw new IOException("not a journal file: " + file);
+		final int version = header.getInt(4);
+		if(version != VERSION)
+			throw new IOException("unsupported journal version: " + version);
+		return header.getInt(8);
+	}
+
+	/**
+	 * Apply records of journal file to factory up to the first incomplete or
+	 * corrupt record.
+	 *
+	 * @return file position after last applied record and number of applied records.
+	 */
+	private static long[] replay(FileChannel ch, Path file, DatamodelFactory factory) throws IOException {
+		final List<Customer> cs = new ArrayList<Customer>(factory.getCustomers());
+		final List<Article> as = new ArrayList<Article>(factory.getArticles());
+		final List<Order> os = new ArrayList<Order>(factory.getOrders());
+		final CRC32 check = new CRC32();
+		generation(ch, file);
+		ch.position(HEADER);
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(ch), 1 << 16));
+		final long size = ch.size();
+		long pos = HEADER;
+		long records = 0L;
+		byte[] body = new byte[256];
+		for(;;) {
+			final int length;
+			try {
+				length = in.readInt();
+				if(length < 1 || length > size - pos - 8)
+					return new long[] {pos, records};
+				if(length > body.length) {
+					body = new byte[Math.max(length, body.length * 2)];
+				}
+				in.readFully(body, 0, length);
+				check.reset();
+				check.update(body, 0, length);
+				if(in.readInt() != (int)check.getValue())
+					return new long[] {pos, records};
+			} catch(EOFException e) {
+				return new long[] {pos, records};
+			}
+			try {
+				apply(ByteBuffer.wrap(body, 0, length), factory, cs, as, os);
+			} catch(RuntimeException e) {
+				throw new IOException("cannot apply journal record at position " + pos + ": " + file, e);
+			}
+			records++;
+			pos += length + 8;
+		}
+	}
+
+	private static void apply(ByteBuffer b, DatamodelFactory factory, List<Customer> cs, List<Article> as, List<Order> os) {
+		final byte type = b.get();
+		switch(type) {
+		case CUSTOMER_CREATED:
+			cs.add(factory.createCustomer().setName(getString(b), getString(b)));
+			break;
+		case CUSTOMER_ID:
+			cs.get(b.getInt()).setId(b.getLong());
+			break;
+		case CUSTOMER_NAME:
+			cs.get(b.getInt()).setName(getString(b), getString(b));
+			break;
+		case CUSTOMER_CONTACTS:
+			final Customer c = cs.get(b.getInt());
+			c.deleteAllContacts();
+			for(int n = b.getInt(); n > 0; n--) {
+				c.addContact(getString(b));
+			}
+			break;
+		case ARTICLE_CREATED:
+			as.add(DatamodelSnapshotImpl.createArticle(factory, getString(b), getString(b), b.getLong(), b.get(), b.get()));
+			break;
+		case ARTICLE_ID:
+			as.get(b.getInt()).setId(getString(b));
+			break;
+		case ARTICLE_DESCRIPTION:
+			as.get(b.getInt()).setDescription(getString(b));
+			break;
+		case ARTICLE_PRICING:
+			final Article a = as.get(b.getInt());
+			a.setUnitPrice(b.getLong());
+			final int currency = b.get(), tax = b.get();
+			if(currency >= 0) {
+				a.setCurrency(CURRENCIES[currency]);
+			}
+			if(tax >= 0) {
+				a.setTax(TAXES[tax]);
+			}
+			break;
+		case ORDER_CREATED:
+			os.add(factory.createOrder(cs.get(b.getInt())).setCreationDate(b.getLong()));
+			break;
+		case ORDER_ID:
+			os.get(b.getInt()).setId(getString(b));
+			break;
+		case ORDER_DATE:
+			os.get(b.getInt()).setCreationDate(b.getLong());
+			break;
+		case ITEM_ADDED:
+			os.get(b.getInt()).addItem(as.get(b.getInt()), b.getInt());
+			break;
+		case ITEM_UNITS:
+			final Order o = os.get(b.getInt());
+			final Iterator<OrderItem> it = o.getItems().iterator();
+			for(int i = b.getInt(); i > 0; i--) {
+				it.next();
+			}
+			it.next().setUnitsOrdered(b.getInt());
+			break;
+		case ITEM_REMOVED:
+			os.get(b.getInt()).deleteItem(b.getInt());
+			break;
+		case ITEMS_CLEARED:
+			os.get(b.getInt()).deleteAllItems();
+			break;
+		default:
+			throw new IllegalArgumentException("unknown journal record type: " + type);
+		}
+	}
+
+	private static String getString(ByteBuffer b) {
+		final int n = b.getInt();
+		if(n < 0)
+			return null;
+		final String s = new String(b.array(), b.arrayOffset() + b.position(), n, StandardCharsets.UTF_8);
+		b.position(b.position() + n);
+		return s;
+	}
+}
@@ -0,0 +1,392 @@
+package system.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import datamodel.Article;
+import datamodel.Currency;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+import system.DatamodelFactory;
+import system.DatamodelSnapshot;
+
+
+/**
+ * Snapshot of the datamodel in a binary file that is written through a
+ * buffered {@link FileChannel} and read through {@link MappedByteBuffer}
+ * windows.
+ * <pre>
+ * File layout (big-endian):
+ *   header:    int magic "SE1S", int version, int customers, int articles,
+ *              int orders, int journal generation, long items, long body length, int CRC32 of body
+ *   customers: long id (-1 unassigned), str firstName, str lastName, int n, n * str contact
+ *   articles:  str id, str description, long unitPrice, byte currency, byte tax
+ *   orders:    str id, int customer index, long creationDate, int n, n * (int article index, int units)
+ *   str:       int length (-1 for null), UTF-8 bytes; enum: ordinal, -1 for null
+ * </pre>
+ * Orders refer to customers and articles by their index in the snapshot.
+ * Checkpoints of the {@link DatamodelJournalImpl} record the generation of
+ * the last journal file they include, other snapshots record {@code 0}.
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+class DatamodelSnapshotImpl implements DatamodelSnapshot {
+
+	/**
+	 * Magic number "SE1S" at the start of a snapshot file.
+	 */
+	static final int MAGIC = 0x53453153;
+
+	/**
+	 * Size of file header in bytes.
+	 */
+	static final int HEADER = 48;
+
+	/**
+	 * Size of write buffer and of mapped read windows.
+	 */
+	private static final int BUFFER = 1 << 20;
+	private static final int WINDOW = 1 << 26;
+
+	private static final Currency[] CURRENCIES = Currency.values();
+	private static final TAX[] TAXES = TAX.values();
+
+
+	@Override
+	public long write(DatamodelFactory factory, Path file) throws IOException {
+		return write(factory, file, 0);
+	}
+
+
+	/**
+	 * Write snapshot that records a journal generation.
+	 *
+	 * @param factory factory whose objects are written.
+	 * @param file snapshot file, replaced atomically.
+	 * @param generation generation of last journal file included in the snapshot.
+	 * @return size of written file in bytes.
+	 * @throws IOException when writing fails.
+	 */
+	long write(DatamodelFactory factory, Path file, int generation) throws IOException {
+		final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final Output out = new Output(ch);
+			//
+			final Map<Customer, Integer> customers = new IdentityHashMap<Customer, Integer>();
+			for(Customer c : factory.getCustomers()) {
+				customers.put(c, customers.size());
+				out.putLong(c.getIdAsLong());
+				out.putString(c.getFirstName());
+				out.putString(c.getLastName());
+				final String[] contacts = c.getContacts();
+				out.putInt(contacts.length);
+				for(String contact : contacts) {
+					out.putString(contact);
+				}
+			}
+			final Map<Article, Integer> articles = new IdentityHashMap<Article, Integer>();
+			for(Article a : factory.getArticles()) {
+				articles.put(a, articles.size());
+				out.putString(a.getId());
+				out.putString(a.getDescription());
+				out.putLong(a.getUnitPrice());
+				out.putByte(a.getCurrency() != null? a.getCurrency().ordinal() : -1);
+				out.putByte(a.getTax() != null? a.getTax().ordinal() : -1);
+			}
+			int orders = 0;
+			long items = 0L;
+			for(Order o : factory.getOrders()) {
+				final Integer c = customers.get(o.getCustomer());
+				if(c == null)
+					throw new IllegalArgumentException("order " + o.getId() + " refers to customer not created by factory");
+				out.putString(o.getId());
+				out.putInt(c);
+				out.putLong(o.getCreationDate());
+				final int n = o.itemsCount();
+				out.putInt(n);
+				int i = 0;
+				for(OrderItem item : o.getItems()) {
+					final Integer a = articles.get(item.getArticle());
+					if(a == null)
+						throw new IllegalArgumentException("order " + o.getId() + " refers to article not created by factory");
+					if(i++ == n)
+						throw new ConcurrentModificationException("items of order " + o.getId() + " changed");
+					out.putInt(a);
+					out.putInt(item.getUnitsOrdered());
+				}
+				if(i != n)
+					throw new ConcurrentModificationException("items of order " + o.getId() + " changed");
+				orders++;
+				items += n;
+			}
+			out.finish(customers.size(), articles.size(), orders, generation, items);
+			ch.force(true);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return Files.size(file);
+	}
+
+
+	@Override
+	public DatamodelFactory read(Path file, DatamodelFactory factory) throws IOException {
+		try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			final Input in = new Input(ch);
+			//
+			final Customer[] customers = new Customer[in.customers];
+			for(int i=0; i < customers.length; i++) {
+				final long id = in.getLong();
+				final String first = in.getString();
+				final String last = in.getString();
+				final Customer c = factory.createCustomer().setName(first, last);
+				if(id >= 0) {
+					c.setId(id);
+				}
+				for(int n = in.getInt(); n > 0; n--) {
+					c.addContact(in.getString());
+				}
+				customers[i] = c;
+			}
+			final Article[] articles = new Article[in.articles];
+			for(int i=0; i < articles.length; i++) {
+				final String id = in.getString();
+				final String description = in.getString();
+				final long unitPrice = in.getLong();
+				final int currency = in.getByte();
+				final int tax = in.getByte();
+				articles[i] = createArticle(factory, id, description, unitPrice, currency, tax);
+			}
+			for(int i=0; i < in.orders; i++) {
+				final String id = in.getString();
+				final Order o = factory.createOrder(customers[in.getInt()]);
+				if(id != null) {
+					o.setId(id);
+				}
+				o.setCreationDate(in.getLong());
+				for(int n = in.getInt(); n > 0; n--) {
+					final Article a = articles[in.getInt()];
+					o.addItem(a, in.getInt());
+				}
+			}
+		} catch(IndexOutOfBoundsException e) {
+			throw new IOException("corrupt snapshot: " + file, e);
+		}
+		return factory;
+	}
+
+
+	/**
+	 * Return journal generation recorded in the header of a snapshot file.
+	 *
+	 * @param file snapshot file.
+	 * @return generation of last journal file included in the snapshot, {@code 0} if none.
+	 * @throws IOException when file cannot be read or is not a snapshot.
+	 */
+	static int generation(Path file) throws IOException {
+		try(FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER);
+			while(header.hasRemaining() && ch.read(header) >= 0) { }
+			if(header.position() < HEADER || header.getInt(0) != MAGIC)
+				throw new IOException("not a snapshot file: " + file);
+			return header.getInt(20);
+		}
+	}
+
+
+	/**
+	 * Create Article with factory from recorded attributes, the description
+	 * constructor is used for valid descriptions, which leaves currency and
+	 * tax unassigned unless recorded.
+	 */
+	static Article createArticle(DatamodelFactory factory, String id, String description,
+			long unitPrice, int currency, int tax) {
+		final Article a = description != null && description.length() > 0?
+			factory.createArticle(description, unitPrice) :
+			factory.createArticle().setUnitPrice(unitPrice);
+		if(id != null) {
+			a.setId(id);
+		}
+		if(currency >= 0) {
+			a.setCurrency(CURRENCIES[currency]);
+		}
+		if(tax >= 0) {
+			a.setTax(TAXES[tax]);
+		}
+		return a;
+	}
+
+
+	/**
+	 * Buffered output that computes the CRC32 of the body and writes the
+	 * header when finished.
+	 */
+	private static final class Output {
+		private final FileChannel ch;
+		private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+		private final CRC32 crc = new CRC32();
+		private long body = 0L;
+
+		Output(FileChannel ch) throws IOException {
+			this.ch = ch;
+			ch.position(HEADER);
+		}
+
+		void putByte(int b) throws IOException {
+			ensure(1).put((byte)b);
+		}
+
+		void putInt(int i) throws IOException {
+			ensure(4).putInt(i);
+		}
+
+		void putLong(long l) throws IOException {
+			ensure(8).putLong(l);
+		}
+
+		void putString(String s) throws IOException {
+			if(s == null) {
+				putInt(-1);
+			} else {
+				final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				putInt(bytes.length);
+				if(bytes.length > BUFFER) {
+					flush();
+					write(ByteBuffer.wrap(bytes));
+				} else {
+					ensure(bytes.length).put(bytes);
+				}
+			}
+		}
+
+		void finish(int customers, int articles, int orders, int generation, long items) throws IOException {
+			flush();
+			final ByteBuffer header = ByteBuffer.allocate(HEADER)
+				.putInt(MAGIC).putInt(VERSION)
+				.putInt(customers).putInt(articles).putInt(orders).putInt(generation)
+				.putLong(items).putLong(body).putInt((int)crc.getValue());
+			header.clear();
+			ch.write(header, 0L);
+		}
+
+		private ByteBuffer ensure(int n) throws IOException {
+			if(buf.remaining() < n) {
+				flush();
+			}
+			return buf;
+		}
+
+		private void flush() throws IOException {
+			buf.flip();
+			write(buf);
+			buf.clear();
+		}
+
+		private void write(ByteBuffer b) throws IOException {
+			crc.update(b.duplicate());
+			body += b.remaining();
+			while(b.hasRemaining()) {
+				ch.write(b);
+			}
+		}
+	}
+
+
+	/**
+	 * Input from mapped windows of a snapshot file, the header is read and
+	 * the body is verified against its CRC32 on construction.
+	 */
+	private static final class Input {
+		private final FileChannel ch;
+		private final long size;
+		private MappedByteBuffer buf;
+		private long base;	// file position of window
+		private byte[] bytes = new byte[256];
+		final int customers, articles, orders;
+
+		Input(FileChannel ch) throws IOException {
+			this.ch = ch;
+			this.size = ch.size();
+			if(size < HEADER)
+				throw new IOException("not a snapshot file, size: " + size);
+			map(0L, HEADER);
+			if(buf.getInt() != MAGIC)
+				throw new IOException("not a snapshot file");
+			final int version = buf.getInt();
+			if(version != VERSION)
+				throw new IOException("unsupported snapshot version: " + version);
+			customers = buf.getInt();
+			articles = buf.getInt();
+			orders = buf.getInt();
+			buf.getInt();
+			buf.getLong();	// items
+			final long body = buf.getLong();
+			final int checksum = buf.getInt();
+			if(body != size - HEADER || customers < 0 || articles < 0 || orders < 0)
+				throw new IOException("corrupt snapshot, body length: " + body + ", file size: " + size);
+			//
+			final CRC32 crc = new CRC32();
+			for(long pos = HEADER; pos < size; pos += WINDOW) {
+				crc.update(ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, size - pos)));
+			}
+			if((int)crc.getValue() != checksum)
+				throw new IOException("corrupt snapshot, checksum mismatch");
+			map(HEADER, 0);
+		}
+
+		int getByte() throws IOException {
+			return ensure(1).get();
+		}
+
+		int getInt() throws IOException {
+			return ensure(4).getInt();
+		}
+
+		long getLong() throws IOException {
+			return ensure(8).getLong();
+		}
+
+		String getString() throws IOException {
+			final int n = getInt();
+			if(n < 0)
+				return null;
+			if(n > bytes.length) {
+				bytes = new byte[Math.max(n, bytes.length * 2)];
+			}
+			ensure(n).get(bytes, 0, n);
+			return new String(bytes, 0, n, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Return window with at least n remaining bytes, maps next window if needed.
+		 */
+		private ByteBuffer ensure(int n) throws IOException {
+			if(buf.remaining() < n) {
+				map(base + buf.position(), n);
+			}
+			return buf;
+		}
+
+		private void map(long pos, int n) throws IOException {
+			if(size - pos < n)
+				throw new EOFException("truncated snapshot at position " + pos);
+			base = pos;
+			buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(Math.max(WINDOW, n), size - pos));
+		}
+	}
+}
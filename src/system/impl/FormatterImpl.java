@@ -1,11 +1,22 @@
 package system.impl;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 import datamodel.Currency;
+import datamodel.Customer;
 import system.Formatter;
 
 
@@ -14,75 +25,256 @@ class FormatterImpl implements Formatter {
 	@Override
 	public String fmtName(String firstName, String lastName, int... style) {
 		final int st = style.length > 0? style[0] : 0;	// 0 is default format
-		String fn = firstName != null? firstName : "";
-		String ln = lastName != null? lastName : "";
-		fn = (st==1 || st==3)? fmtName(fn, "", 21) : fn;	// firstName -> "E."
-		ln = (st==4)? fmtName("", ln, 22) : ln;		// lastName -> "M."
+		return namePlan(st).format(firstName, lastName);
+	}
+
+	@Override
+	public List<String> fmtNames(Collection<Customer> customers, int style) {
+		final NamePlan plan = namePlan(style);
+		final List<String> names = new ArrayList<String>(customers != null? customers.size() : 0);
+		if(customers != null) {
+			for(Customer c : customers) {
+				names.add(c != null? plan.format(c.getFirstName(), c.getLastName()) : null);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Return compiled plan of a name style, negative styles fall back to the
+	 * default style 0, styles above 22 format to "".
+	 */
+	private static NamePlan namePlan(int style) {
+		return style < 0? namePlans[0] : style < namePlans.length? namePlans[style] : NamePlan.EMPTY;
+	}
+
+	/**
+	 * Plans of name styles 0..22 compiled once (see {@link Formatter#fmtName(String, String, int...)}).
+	 */
+	private static final NamePlan[] namePlans = new NamePlan[23];
+
+	static {
+		for(int st=0; st < 10; st++) {
+			NamePart fp = (st==1 || st==3)? NamePart.INITIAL : NamePart.FULL;	// firstName -> "E."
+			NamePart lp = (st==4)? NamePart.INITIAL : NamePart.FULL;			// lastName -> "M."
+			NameJoin join =
+				(st>=2 && st<=4)? NameJoin.FIRST_LAST :
+				(st==5)? NameJoin.FIRST :
+				(st==6)? NameJoin.LAST :
+					NameJoin.LAST_FIRST;	// styles 0, 1 and default for 7..9
+			namePlans[st] = new NamePlan(fp, lp, join, false);
+			namePlans[st + 10] = new NamePlan(fp, lp, join, true);	// upper-case styles
+		}
+		namePlans[20] = new NamePlan(NamePart.INITIAL, NamePart.INITIAL, NameJoin.CONCAT, false);
+		namePlans[21] = new NamePlan(NamePart.INITIAL, NamePart.NONE, NameJoin.CONCAT, false);
+		namePlans[22] = new NamePlan(NamePart.NONE, NamePart.INITIAL, NameJoin.CONCAT, false);
+	}
+
+	/**
+	 * Form of a name part: full, initial ("E.") or omitted.
+	 */
+	private enum NamePart { FULL, INITIAL, NONE };
+
+	/**
+	 * Join of name parts when both are non-empty, otherwise parts are concatenated.
+	 */
+	private enum NameJoin { LAST_FIRST, FIRST_LAST, FIRST, LAST, CONCAT };
+
+	/**
+	 * Compiled name style that formats name parts into a pre-sized buffer.
+	 */
+	private static final class NamePlan {
+		static final NamePlan EMPTY = new NamePlan(NamePart.NONE, NamePart.NONE, NameJoin.CONCAT, false);
+		final NamePart first, last;
+		final NameJoin join;
+		final boolean upper;
 		//
-		return
-			(st >= 10)? (
-				(st>=10 && st<20)? fmtName(firstName, lastName, st - 10).toUpperCase() :
-				(st==20)? fmtName(firstName, "", 21) + fmtName("", lastName, 22) :
-				(st==21)? fn.length() > 0? String.format("%s.", fn.substring(0, 1).toUpperCase()) : "" :
-				(st==22)? ln.length() > 0? String.format("%s.", ln.substring(0, 1).toUpperCase()) : "" :
-					""	// return as default for: st > 22
-			) : (
-				(fn.length() > 0 && ln.length() > 0)? (
-					(st>=0 && st<=1)? String.format("%s, %s", ln, fn) :
-					(st>=2 && st<=4)? String.format("%s %s", fn, ln) :
-					(st==5)? fn :
-					(st==6)? ln : fmtName(fn, ln)	// return default name style
-			) : fn + ln);	// fn or ln (or both) are ""
+		NamePlan(NamePart first, NamePart last, NameJoin join, boolean upper) {
+			this.first = first;
+			this.last = last;
+			this.join = join;
+			this.upper = upper;
+		}
+
+		String format(String firstName, String lastName) {
+			final String fn = firstName != null? firstName : "";
+			final String ln = lastName != null? lastName : "";
+			final int fl = partLength(fn, first);
+			final int ll = partLength(ln, last);
+			final StringBuilder sb = new StringBuilder(fl + ll + 2);
+			if(join==NameJoin.CONCAT || fl==0 || ll==0) {
+				part(part(sb, fn, first), ln, last);	// fn or ln (or both) are ""
+			} else {
+				switch(join) {
+				case LAST_FIRST:	part(part(sb, ln, last).append(", "), fn, first); break;
+				case FIRST_LAST:	part(part(sb, fn, first).append(' '), ln, last); break;
+				case FIRST:			part(sb, fn, first); break;
+				case LAST:			part(sb, ln, last); break;
+				default:
+				}
+			}
+			return upper? sb.toString().toUpperCase() : sb.toString();
+		}
+
+		private static int partLength(String name, NamePart form) {
+			return form==NamePart.FULL? name.length() :
+				form==NamePart.INITIAL && name.length() > 0? 2 : 0;
+		}
+
+		private static StringBuilder part(StringBuilder sb, String name, NamePart form) {
+			if(form==NamePart.FULL) {
+				sb.append(name);
+			} else if(form==NamePart.INITIAL && name.length() > 0) {
+				char c = name.charAt(0);	// ASCII except 'i' upper-cases the same in all locales
+				if(c < 0x80 && c != 'i') {
+					sb.append(Character.toUpperCase(c));
+				} else {
+					sb.append(name.substring(0, 1).toUpperCase());
+				}
+				sb.append('.');
+			}
+			return sb;
+		}
 	}
-	
-	private static final DateFormat[] dateFmts = {
-			new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"),				// 0: 2022-05-17 18:55:43
-			new SimpleDateFormat("dd-MM-yyyy HH:mm:ss"),				// 1: 17-05-2022 18:55:43
-			null,														// 2: 1652823817740, as long-String
+
+	/**
+	 * Time zone of formatted dates, captured once like the former SimpleDateFormat
+	 * instances did at construction.
+	 */
+	private static final ZoneId zone = ZoneId.systemDefault();
+	private static final ZoneRules zoneRules = zone.getRules();
+
+	/**
+	 * Immutable, thread-safe date formatters. Numeric styles 0, 1, 3, 4 are
+	 * formatted by {@link #fmtNumericDate(long, int, String, int)} without formatter.
+	 */
+	private static final DateTimeFormatter[] dateFmts = {
+			DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),				// 0: 2022-05-17 18:55:43
+			DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss"),				// 1: 17-05-2022 18:55:43
+			null,															// 2: 1652823817740, as long-String
 			//
-			new SimpleDateFormat("yyyy-MM-dd"),							// 3: 2022-05-17
-			new SimpleDateFormat("dd-MM-yyyy"),							// 4: 17-05-2022
-			new SimpleDateFormat("MM/dd/yy", Locale.US),				// 5: 05/17/22
-			new SimpleDateFormat("MM/dd/yyyy", Locale.US),				// 6: 05/17/2022
-			DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.US),	// 7: May 17, 2022
+			DateTimeFormatter.ofPattern("yyyy-MM-dd"),						// 3: 2022-05-17
+			DateTimeFormatter.ofPattern("dd-MM-yyyy"),						// 4: 17-05-2022
+			DateTimeFormatter.ofPattern("MM/dd/yy", Locale.US),				// 5: 05/17/22
+			DateTimeFormatter.ofPattern("MM/dd/yyyy", Locale.US),			// 6: 05/17/2022
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.US),	// 7: May 17, 2022
 			//
-			DateFormat.getDateInstance(DateFormat.SHORT, Locale.GERMAN),	// 8: 17.05.22
-			DateFormat.getDateInstance(DateFormat.MEDIUM, Locale.GERMAN),	// 9: 17.05.2022
-			DateFormat.getDateInstance(DateFormat.LONG, Locale.GERMAN),		//10: 17. Mai 2022
-			new SimpleDateFormat("EEE", Locale.GERMAN),						//11: Di
-			new SimpleDateFormat("EEEE", Locale.GERMAN),					//12: Dienstag
-			new SimpleDateFormat("EEEE, 'der' dd. MMM yyyy",Locale.GERMAN),	//13: Dienstag, der 17. Mai 2022
-			new SimpleDateFormat("EEE", Locale.US),							//14: Tue
-			new SimpleDateFormat("EEEE", Locale.US),						//15: Tuesday
-			new SimpleDateFormat("EEE, MMM dd, yyyy",Locale.US),			//16: Tue, May 05, 2022
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).withLocale(Locale.GERMAN),	// 8: 17.05.22
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.GERMAN),// 9: 17.05.2022
+			DateTimeFormatter.ofLocalizedDate(FormatStyle.LONG).withLocale(Locale.GERMAN),	//10: 17. Mai 2022
+			DateTimeFormatter.ofPattern("EEE", Locale.GERMAN),						//11: Di
+			DateTimeFormatter.ofPattern("EEEE", Locale.GERMAN),						//12: Dienstag
+			DateTimeFormatter.ofPattern("EEEE, 'der' dd. MMM yyyy",Locale.GERMAN),	//13: Dienstag, der 17. Mai 2022
+			DateTimeFormatter.ofPattern("EEE", Locale.US),							//14: Tue
+			DateTimeFormatter.ofPattern("EEEE", Locale.US),							//15: Tuesday
+			DateTimeFormatter.ofPattern("EEE, MMM dd, yyyy",Locale.US),				//16: Tue, May 05, 2022
 		};
-	
-	private static final DateFormat[] timeFmts = {
-			new SimpleDateFormat("HH:mm:ss"),				// 0: 18:55:43
-			new SimpleDateFormat("HH:mm"),					// 1: 18:55
-			new SimpleDateFormat("HH:mm:ss.SSS"),			// 2: 18:55:43.348
-			new SimpleDateFormat("HH:mm:ss, z"),			// 3: 18:55:43, CEST
-			new SimpleDateFormat("HH:mm:ss, Z"),			// 4: 18:55:43, +0200
-			new SimpleDateFormat("HH:mm:ss, aa")			// 5: 06:55:43 PM
+
+	private static final DateTimeFormatter[] timeFmts = {
+			DateTimeFormatter.ofPattern("HH:mm:ss"),			// 0: 18:55:43
+			DateTimeFormatter.ofPattern("HH:mm"),				// 1: 18:55
+			DateTimeFormatter.ofPattern("HH:mm:ss.SSS"),		// 2: 18:55:43.348
+			DateTimeFormatter.ofPattern("HH:mm:ss, z"),			// 3: 18:55:43, CEST
+			DateTimeFormatter.ofPattern("HH:mm:ss, Z"),			// 4: 18:55:43, +0200
+			DateTimeFormatter.ofPattern("HH:mm:ss, a")			// 5: 18:55:43, PM
 		};
 
 	@Override
 	public String fmtDate(long datetime, int dateStyle, String fill, int... timeStyle) {
 		int tst = timeStyle.length > 0? timeStyle[0] : -1;
-		String datetimeStr = "";
-		DateFormat df = dateStyle >= 0 && dateStyle < dateFmts.length? dateFmts[dateStyle] : null;
-		datetimeStr = dateStyle==2?
-			Long.toUnsignedString(datetime) :	// case 2: return long number as String
-			df==null? "" : df.format(datetime);	// remaining cases
+		if(dateStyle==2)
+			return Long.toUnsignedString(datetime);	// case 2: return long number as String
 		//
-		DateFormat tf = tst >= 0 && tst < timeFmts.length? timeFmts[tst] : null;
+		if(dateStyle==0 || dateStyle==1 || ((dateStyle==3 || dateStyle==4) && tst <= 2)) {
+			String numeric = fmtNumericDate(datetime, dateStyle, fill, tst);
+			if(numeric != null)
+				return numeric;
+		}
+		DateTimeFormatter df = dateStyle >= 0 && dateStyle < dateFmts.length? dateFmts[dateStyle] : null;
+		ZonedDateTime zdt = Instant.ofEpochMilli(datetime).atZone(zone);
+		String datetimeStr = df==null? "" : df.format(zdt);	// remaining cases
+		//
+		DateTimeFormatter tf = tst >= 0 && tst < timeFmts.length? timeFmts[tst] : null;
 		if(tf != null && dateStyle > 2) {
 			datetimeStr += fill != null? fill : " ";
-			datetimeStr += tf.format(datetime);
+			datetimeStr += tf.format(zdt);
 		}
 		return datetimeStr;
 	}
-	
+
+	/**
+	 * Format numeric date styles 0, 1, 3, 4 with optional numeric time styles 0, 1, 2
+	 * by converting epoch milliseconds to date and time fields and writing digits
+	 * directly into a char buffer.
+	 * 
+	 * @return formatted date or null for years outside 1..9999.
+	 */
+	private static String fmtNumericDate(long datetime, int dateStyle, String fill, int tst) {
+		long millis = Math.floorMod(datetime, 1000L);
+		long epochSec = Math.floorDiv(datetime, 1000L);
+		long local = epochSec + (zoneRules.isFixedOffset()?
+				zoneRules.getOffset(Instant.EPOCH) : zoneRules.getOffset(Instant.ofEpochSecond(epochSec))).getTotalSeconds();
+		long days = Math.floorDiv(local, 86400L);
+		int secOfDay = (int)Math.floorMod(local, 86400L);
+		//
+		// civil date from days since 1970-01-01 (proleptic Gregorian calendar)
+		long z = days + 719468L;
+		long era = Math.floorDiv(z, 146097L);
+		int doe = (int)(z - era * 146097L);
+		int yoe = (doe - doe/1460 + doe/36524 - doe/146096) / 365;
+		int doy = doe - (365*yoe + yoe/4 - yoe/100);
+		int mp = (5*doy + 2) / 153;
+		int day = doy - (153*mp + 2)/5 + 1;
+		int month = mp < 10? mp + 3 : mp - 9;
+		long year = yoe + era * 400L + (month <= 2? 1 : 0);
+		if(year < 1 || year > 9999)
+			return null;
+		//
+		final String fl = dateStyle <= 1? " " : fill != null? fill : " ";
+		final boolean time = dateStyle <= 1 || tst >= 0;
+		final int ts = dateStyle <= 1? 0 : tst;
+		final char[] buf = new char[10 + (time? fl.length() + 12 : 0)];
+		int i = 0;
+		if(dateStyle==0 || dateStyle==3) {		// yyyy-MM-dd
+			i = digits(buf, digits(buf, digits(buf, i, (int)year, 4, '-'), month, 2, '-'), day, 2, NO_SEP);
+		} else {								// dd-MM-yyyy
+			i = digits(buf, digits(buf, digits(buf, i, day, 2, '-'), month, 2, '-'), (int)year, 4, NO_SEP);
+		}
+		if(time) {
+			fl.getChars(0, fl.length(), buf, i);
+			i = digits(buf, i + fl.length(), secOfDay / 3600, 2, ':');
+			i = digits(buf, i, (secOfDay / 60) % 60, 2, ts==1? NO_SEP : ':');
+			if(ts != 1) {
+				i = digits(buf, i, secOfDay % 60, 2, ts==2? '.' : NO_SEP);
+			}
+			if(ts == 2) {
+				i = digits(buf, i, (int)millis, 3, NO_SEP);
+			}
+		}
+		return new String(buf, 0, i);
+	}
+
+	/**
+	 * Marker for no separator after digits.
+	 */
+	private static final char NO_SEP = 0x00;
+
+	/**
+	 * Write value with a fixed number of digits (zero-padded) and an optional separator.
+	 * 
+	 * @return position after written chars.
+	 */
+	private static int digits(char[] buf, int i, int value, int n, char sep) {
+		for(int k = i + n - 1; k >= i; k--, value /= 10) {
+			buf[k] = (char)('0' + value % 10);
+		}
+		i += n;
+		if(sep != NO_SEP) {
+			buf[i++] = sep;
+		}
+		return i;
+	}
+
 	/**
 	 * Currency symbols defined by ASCII/Unicode-Strings mapped from Currency enum.
 	 */
@@ -102,41 +294,116 @@ class FormatterImpl implements Formatter {
 	@Override
 	public String fmtPrice(long price, int... style) {
 		final int st = style.length > 0? style[0] : 0;	// 0 is default format
+		return fmtPrice(new StringBuilder(24), price, st).toString();
+	}
+
+	@Override
+	public StringBuilder fmtPrice(StringBuilder sb, long price, int style) {
 		return
-			st==0? fmtDecimal(price, 2) :
-			st==1? fmtDecimal(price, 2, EUR) :
-			st==2? fmtDecimal(price, 2, CurrencySymbol.get(Currency.USD)) :
-			st==3? fmtDecimal(price, 2, CurrencySymbol.get(Currency.GBP)) :
-			st==4? fmtDecimal(price, 0, CurrencySymbol.get(Currency.YEN)) :
-			st==5? fmtDecimal(price, 0) :
-			"";
+			style==0? fmtDecimal(sb, price, 2, null) :
+			style==1? fmtDecimal(sb, price, 2, EUR) :
+			style==2? fmtDecimal(sb, price, 2, USD) :
+			style==3? fmtDecimal(sb, price, 2, GBP) :
+			style==4? fmtDecimal(sb, price, 0, YEN) :
+			style==5? fmtDecimal(sb, price, 0, null) :
+			sb;
 	}
 
 	@Override
 	public String fmtDecimal(long value, int decimalDigits, String... unit) {
 		final String unitStr = unit.length > 0? unit[0] : null;
-		final Object[][] dec = {
-			{      "%,d", 1L },		// no decimal digits:  16,000Y
-			{ "%,d.%01d", 10L },
-			{ "%,d.%02d", 100L },	// double-digit price: 169.99E
-			{ "%,d.%03d", 1000L },	// triple-digit unit:  16.999-
-		};
-		String result;
-		String fmt = (String)dec[decimalDigits][0];
-		if(unitStr != null && unitStr.length() > 0) {
-			fmt += "%s";	// add "%s" to format for unit string
+		return fmtDecimal(new StringBuilder(24), value, decimalDigits, unitStr).toString();
+	}
+
+	@Override
+	public StringBuilder fmtDecimal(StringBuilder sb, long value, int decimalDigits, String unit) {
+		if(decimalDigits < 0 || decimalDigits >= DEC_DIGITS.length) {
+			throw new IllegalArgumentException("decimalDigits not in 0..3: " + decimalDigits);
 		}
-		int decdigs = Math.max(0, Math.min(dec.length - 1, decimalDigits));
-		//
-		if(decdigs==0) {
-			Object[] args = {value, unitStr};
-			result = String.format(fmt, args);
-		} else {
-			long digs = (long)dec[decdigs][1];
-			long frac = Math.abs( value % digs );
-			Object[] args = {value/digs, frac, unitStr};
-			result = String.format(fmt, args);
-		}
-		return result;
+		if(decimalDigits==0) {		// no decimal digits:  16,000Y
+			appendGrouped(sb, value);
+		} else {					// double-digit price: 169.99E
+			long digs = DEC_DIGITS[decimalDigits];
+			appendGrouped(sb, value / digs).append('.');
+			appendDigits(sb, Math.abs(value % digs), decimalDigits);
+		}
+		if(unit != null && unit.length() > 0) {
+			sb.append(unit);
+		}
+		return sb;
+	}
+
+	/**
+	 * Divisors for 0..3 decimal digits.
+	 */
+	private static final long[] DEC_DIGITS = { 1L, 10L, 100L, 1000L };
+
+	/**
+	 * Currency symbols used by {@link #fmtPrice(StringBuilder, long, int)}.
+	 */
+	private final String USD = CurrencySymbol.get(Currency.USD);
+	private final String GBP = CurrencySymbol.get(Currency.GBP);
+	private final String YEN = CurrencySymbol.get(Currency.YEN);
+
+	/**
+	 * Grouping separator, group size and zero digit of the default format locale
+	 * as used by {@code String.format("%,d")}, captured once.
+	 */
+	private static final char groupingSeparator;
+	private static final int groupingSize;
+	private static final char zeroDigit;
+
+	static {
+		Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+		DecimalFormatSymbols dfs = DecimalFormatSymbols.getInstance(locale);
+		NumberFormat nf = NumberFormat.getNumberInstance(locale);
+		char sep = dfs.getGroupingSeparator();
+		int size = 3;
+		if(nf instanceof DecimalFormat) {
+			DecimalFormat df = (DecimalFormat)nf;
+			size = df.getGroupingSize();
+			sep = df.isGroupingUsed() && size > 0? sep : NO_SEP;
+		}
+		groupingSeparator = sep;
+		groupingSize = size;
+		zeroDigit = dfs.getZeroDigit();
+	}
+
+	/**
+	 * Append value with grouping separators like {@code String.format("%,d")}.
+	 * Digits are written from the right into reserved space of sb.
+	 */
+	private static StringBuilder appendGrouped(StringBuilder sb, long value) {
+		if(value < 0) {
+			sb.append('-');
+		}
+		long n = value < 0? value : -value;	// negative magnitude also holds Long.MIN_VALUE
+		int digits = 1;
+		for(long t = n / 10; t != 0; t /= 10) {
+			digits++;
+		}
+		boolean grouped = groupingSeparator != NO_SEP;
+		int end = sb.length() + digits + (grouped? (digits - 1) / groupingSize : 0);
+		sb.setLength(end);
+		int pos = end;
+		for(int k = 0; k < digits; k++, n /= 10) {
+			if(grouped && k > 0 && k % groupingSize == 0) {
+				sb.setCharAt(--pos, groupingSeparator);
+			}
+			sb.setCharAt(--pos, (char)(zeroDigit - (n % 10)));
+		}
+		return sb;
+	}
+
+	/**
+	 * Append non-negative value zero-padded to n digits.
+	 */
+	private static StringBuilder appendDigits(StringBuilder sb, long value, int n) {
+		int end = sb.length() + n;
+		sb.setLength(end);
+		for(int pos = end - 1; pos >= end - n; pos--, value /= 10) {
+			sb.setCharAt(pos, (char)(zeroDigit + (value % 10)));
+		}
+		return sb;
 	}
 }
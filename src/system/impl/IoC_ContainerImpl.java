@@ -1,7 +1,14 @@
 package system.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
 import system.Calculator;
 import system.DatamodelFactory;
+import system.DatamodelJournal;
+import system.DatamodelSnapshot;
 import system.Formatter;
 import system.IoC;
 import system.OrderBuilder;
@@ -31,17 +38,75 @@ public final class IoC_ContainerImpl implements IoC {
 	private final Printer printer;
 	private final DatamodelFactory datamodelfactory;
 	private final OrderBuilder orderBuilder;
+	private final DatamodelSnapshot datamodelSnapshot;
+	private final DatamodelJournal datamodelJournal;
+
+	/**
+	 * System property to select the thread-safe {@link DatamodelFactory} implementation,
+	 * e.g. {@code java -Dse1.bestellsystem.concurrent=true ...}.
+	 */
+	public static final String CONCURRENT_PROPERTY = "se1.bestellsystem.concurrent";
+
+	/**
+	 * System property to keep a columnar mirror of order items for tax breakdowns
+	 * over all created orders, e.g. {@code java -Dse1.bestellsystem.columns=true ...}.
+	 */
+	public static final String COLUMNS_PROPERTY = "se1.bestellsystem.columns";
+
+	/**
+	 * System properties to enable the {@link DatamodelJournal} with a journal file,
+	 * to select its fsync policy ({@code ALWAYS}, {@code BATCH} (default), {@code NEVER})
+	 * and the journal size in bytes that triggers a checkpoint ({@code 0} for none),
+	 * e.g. {@code java -Dse1.bestellsystem.journal=orders.journal ...}.
+	 */
+	public static final String JOURNAL_PROPERTY = "se1.bestellsystem.journal";
+	public static final String FSYNC_PROPERTY = "se1.bestellsystem.journal.fsync";
+	public static final String CHECKPOINT_PROPERTY = "se1.bestellsystem.journal.checkpoint";
 
 
 	/**
 	 * Private constructor to prevent instance creation outside this class.
 	 */
 	private IoC_ContainerImpl() {
-		this.calculator = new CalculatorImpl();
+		DatamodelFactoryImpl factory = new DatamodelFactoryImpl(
+			Boolean.getBoolean(CONCURRENT_PROPERTY), Boolean.getBoolean(COLUMNS_PROPERTY));
+		this.calculator = new CalculatorImpl(factory);
 		this.formatter = new FormatterImpl();
 		this.printer = new PrinterImpl(calculator, formatter);
-		this.datamodelfactory = new DatamodelFactoryImpl();
+		this.datamodelfactory = factory;
 		this.orderBuilder = new OrderBuilderImpl(datamodelfactory);
+		this.datamodelSnapshot = new DatamodelSnapshotImpl();
+		this.datamodelJournal = openJournal(factory);
+	}
+
+
+	/**
+	 * Open journal when enabled by system property, recover the factory from
+	 * checkpoint and journal and close the journal on shutdown.
+	 */
+	private static DatamodelJournal openJournal(DatamodelFactoryImpl factory) {
+		final String file = System.getProperty(JOURNAL_PROPERTY);
+		if(file == null || file.isEmpty())
+			return null;
+		final DatamodelJournal.Fsync fsync = DatamodelJournal.Fsync.valueOf(
+			System.getProperty(FSYNC_PROPERTY, DatamodelJournal.Fsync.BATCH.name()).toUpperCase());
+		try {
+			final DatamodelJournalImpl journal = new DatamodelJournalImpl(Path.of(file), fsync,
+				Long.getLong(CHECKPOINT_PROPERTY, DatamodelJournalImpl.DEFAULT_CHECKPOINT_BYTES));
+			journal.recover(factory);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					journal.close();
+				} catch(IOException e) {	// no caller left, report before the process exits
+					System.err.println("closing journal " + file + " on shutdown failed,"
+						+ " recent changes may not be durable:");
+					e.printStackTrace();
+				}
+			}, "datamodel-journal-shutdown"));
+			return journal;
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 
@@ -102,4 +167,26 @@ public final class IoC_ContainerImpl implements IoC {
 		return this.datamodelfactory;
 	}
 
+
+	/**
+	 * Getter of system singleton component that implements the {@link DatamodelSnapshot} interface.
+	 * 
+	 * @return reference to singleton DatamodelSnapshot instance.
+	 */
+	@Override
+	public DatamodelSnapshot getDatamodelSnapshot() {
+		return this.datamodelSnapshot;
+	}
+
+
+	/**
+	 * Getter of system singleton component that implements the {@link DatamodelJournal} interface.
+	 * 
+	 * @return Optional with journal, empty Optional when journaling is not enabled.
+	 */
+	@Override
+	public Optional<DatamodelJournal> getDatamodelJournal() {
+		return Optional.ofNullable(this.datamodelJournal);
+	}
+
 }
@@ -0,0 +1,228 @@
+package system.impl;
+
+import java.util.concurrent.locks.StampedLock;
+
+
+/**
+ * Hash map with primitive {@code long} keys using open addressing with linear
+ * probing. Keys are stored in a {@code long[]} and values in a parallel
+ * {@code Object[]}, neither lookups nor insertions box keys or allocate
+ * entry objects. Values are compared by identity, {@code null} values are
+ * not permitted (a {@code null} slot marks a free slot).
+ * <p>
+ * A concurrent map guards writes with a {@link StampedLock}. Reads use
+ * optimistic stamps and only fall back to a read lock when a write
+ * interfered, so reads do not block writers in the common case.
+ * </p>
+ *
+ * @param <V> value type.
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class LongMap<V> {
+
+	/**
+	 * Initial capacity (power of two) and maximum load factor 3/4.
+	 */
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * Lock for a concurrent map, null for single-threaded use.
+	 */
+	private final StampedLock lock;
+
+	/**
+	 * Parallel arrays of keys and values, capacity is a power of two.
+	 */
+	private long[] keys = new long[MIN_CAPACITY];
+	private Object[] vals = new Object[MIN_CAPACITY];
+
+	/**
+	 * Number of mappings.
+	 */
+	private int size = 0;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param concurrent true for a map that can be shared by concurrent threads.
+	 */
+	LongMap(boolean concurrent) {
+		this.lock = concurrent? new StampedLock() : null;
+	}
+
+
+	/**
+	 * Return value mapped to key.
+	 *
+	 * @param key key of mapping.
+	 * @return mapped value or null.
+	 */
+	V get(long key) {
+		if(lock == null)
+			return lookup(keys, vals, key);
+		//
+		long stamp = lock.tryOptimisticRead();
+		V value = lookup(keys, vals, key);
+		if( ! lock.validate(stamp)) {
+			stamp = lock.readLock();
+			try {
+				value = lookup(keys, vals, key);
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		return value;
+	}
+
+
+	/**
+	 * Map key to value unless key is already mapped.
+	 *
+	 * @param key key of mapping.
+	 * @param value value to map, must not be null.
+	 * @return previously mapped value or null if value was mapped.
+	 */
+	V putIfAbsent(long key, V value) {
+		if(value == null)
+			throw new IllegalArgumentException("null value");
+		//
+		long stamp = lock != null? lock.writeLock() : 0L;
+		try {
+			int i = slot(keys, vals, key);
+			@SuppressWarnings("unchecked")
+			V prev = (V)vals[i];
+			if(prev == null) {
+				keys[i] = key;
+				vals[i] = value;
+				if(++size > (vals.length >>> 2) * 3) {
+					resize(vals.length << 1);
+				}
+			}
+			return prev;
+		} finally {
+			if(lock != null)
+				lock.unlockWrite(stamp);
+		}
+	}
+
+
+	/**
+	 * Remove mapping of key if mapped to the given value (by identity).
+	 *
+	 * @param key key of mapping.
+	 * @param value value mapped to key.
+	 * @return true if mapping was removed.
+	 */
+	boolean remove(long key, V value) {
+		long stamp = lock != null? lock.writeLock() : 0L;
+		try {
+			int i = slot(keys, vals, key);
+			if(vals[i] == null || vals[i] != value)
+				return false;
+			//
+			// backward-shift deletion keeps probe sequences intact without tombstones
+			final int mask = vals.length - 1;
+			for(int j = (i + 1) & mask; vals[j] != null; j = (j + 1) & mask) {
+				int home = hash(keys[j]) & mask;
+				if(((j - home) & mask) >= ((j - i) & mask)) {
+					keys[i] = keys[j];
+					vals[i] = vals[j];
+					i = j;
+				}
+			}
+			vals[i] = null;
+			size--;
+			return true;
+		} finally {
+			if(lock != null)
+				lock.unlockWrite(stamp);
+		}
+	}
+
+
+	/**
+	 * Return number of mappings.
+	 *
+	 * @return number of mappings.
+	 */
+	int size() {
+		if(lock == null)
+			return size;
+		//
+		long stamp = lock.tryOptimisticRead();
+		int n = size;
+		return lock.validate(stamp)? n : readSize();
+	}
+
+
+	/*
+	 * Private methods.
+	 */
+
+	private int readSize() {
+		long stamp = lock.readLock();
+		try {
+			return size;
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Probe arrays for key, bounded by capacity so that an optimistic read
+	 * over arrays from different generations terminates.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <V> V lookup(long[] keys, Object[] vals, long key) {
+		final int n = Math.min(keys.length, vals.length);
+		final int mask = n - 1;
+		for(int i = hash(key) & mask, probes = 0; probes < n; i = (i + 1) & mask, probes++) {
+			Object v = vals[i];
+			if(v == null)
+				return null;
+			if(keys[i] == key)
+				return (V)v;
+		}
+		return null;
+	}
+
+	/**
+	 * Return slot of key or first free slot in its probe sequence.
+	 */
+	private static int slot(long[] keys, Object[] vals, long key) {
+		final int mask = vals.length - 1;
+		int i = hash(key) & mask;
+		while(vals[i] != null && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldVals = vals;
+		long[] newKeys = new long[capacity];
+		Object[] newVals = new Object[capacity];
+		for(int i = 0; i < oldVals.length; i++) {
+			if(oldVals[i] != null) {
+				int j = slot(newKeys, newVals, oldKeys[i]);
+				newKeys[j] = oldKeys[i];
+				newVals[j] = oldVals[i];
+			}
+		}
+		keys = newKeys;
+		vals = newVals;
+	}
+
+	/**
+	 * Fibonacci hashing spreads sequential ids over the table.
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+}
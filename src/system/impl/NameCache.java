@@ -0,0 +1,143 @@
+package system.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import datamodel.Customer;
+import system.Formatter;
+
+
+/**
+ * Bounded cache of formatted customer names keyed by Customer (by identity)
+ * and name style. Reports with many orders per customer format each name
+ * once instead of once per order row.
+ * <p>
+ * An entry remembers the name strings it was formatted from. Since
+ * {@link Customer#setName(String, String)} and {@link Customer#setName(String)}
+ * assign new name strings, an entry is invalidated on the next lookup after
+ * the name has changed. The cache holds at most {@code capacity} customers,
+ * the least recently used customer is evicted first.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class NameCache {
+
+	/**
+	 * Default number of cached customers.
+	 */
+	static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Cached styles 0..22, other styles are formatted without caching.
+	 */
+	private static final int STYLES = 23;
+
+	private final Formatter formatter;
+
+	/**
+	 * Maximum number of cached customers.
+	 */
+	private final int capacity;
+
+	/**
+	 * Customers in access order, Customer does not override equals() and
+	 * hashCode() and is therefore compared by identity.
+	 */
+	private final LinkedHashMap<Customer, Entry> entries;
+
+	private long hits = 0;
+	private long misses = 0;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param formatter formatter used to format names on cache misses.
+	 * @param capacity maximum number of cached customers.
+	 */
+	NameCache(Formatter formatter, final int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("capacity: " + capacity);
+		//
+		this.formatter = formatter;
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Customer, Entry>(Math.min(capacity, 1024), 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Customer, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+
+	/**
+	 * Return formatted name of customer, formatted name is cached.
+	 *
+	 * @param customer customer whose name is formatted.
+	 * @param style name formatting style (see {@link Formatter#fmtName(String, String, int...)}).
+	 * @return formatted name.
+	 */
+	synchronized String fmtName(Customer customer, int style) {
+		final String first = customer.getFirstName();
+		final String last = customer.getLastName();
+		if(style < 0 || style >= STYLES)
+			return formatter.fmtName(first, last, style);
+		//
+		Entry e = entries.get(customer);
+		if(e == null || e.first != first || e.last != last) {
+			e = new Entry(first, last);		// new or name changed since formatted
+			entries.put(customer, e);
+		}
+		String name = e.names[style];
+		if(name == null) {
+			name = e.names[style] = formatter.fmtName(first, last, style);
+			misses++;
+		} else {
+			hits++;
+		}
+		return name;
+	}
+
+
+	/**
+	 * Return cache hit rate.
+	 *
+	 * @return ratio of hits to lookups, 0.0 before the first lookup.
+	 */
+	synchronized double hitRate() {
+		final long lookups = hits + misses;
+		return lookups == 0? 0.0 : (double)hits / lookups;
+	}
+
+
+	/**
+	 * Return cache statistics, e.g.
+	 * {@code "name cache: 9500 hits, 500 misses, hit rate 95.0%, 500/4096 customers"}.
+	 *
+	 * @return cache statistics.
+	 */
+	@Override
+	public synchronized String toString() {
+		return String.format("name cache: %d hits, %d misses, hit rate %.1f%%, %d/%d customers",
+			hits, misses, hitRate() * 100.0, entries.size(), capacity);
+	}
+
+
+	/**
+	 * Formatted names of one customer by style.
+	 */
+	private static final class Entry {
+		final String first, last;
+		final String[] names = new String[STYLES];
+
+		Entry(String first, String last) {
+			this.first = first;
+			this.last = last;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package system.impl;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import datamodel.Article;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+
+
+/**
+ * Columnar mirror of order items for analytics scans. Each item is a row in
+ * parallel primitive arrays of order index, article index, units, unit price
+ * and tax ordinal, so that aggregations run in tight loops over arrays
+ * instead of following references from orders to items to articles.
+ * <p>
+ * The mirror is kept in sync by {@link DatamodelFactoryImpl} through the
+ * {@link datamodel.ChangeListener} of created objects. Removed items leave a
+ * dead row (tax ordinal {@code -1}) that scans skip; dead rows are compacted
+ * when they make up half of the rows. Rows of one order are chained to find
+ * the row of a removed or changed item without an index per item, rows of
+ * one article are chained to update prices in O(rows of the article). Dead
+ * rows stay in the chain of their article until compacted.
+ * </p><p>
+ * The mirror costs a dictionary entry per order and a lock per item change,
+ * factories only keep it when enabled. All methods synchronize on the
+ * mirror, scans see a consistent state.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class OrderItemColumns {
+
+	/**
+	 * Tax ordinal of a dead row.
+	 */
+	static final byte DEAD = -1;
+
+	/**
+	 * Initial capacity of row and dictionary arrays.
+	 */
+	private static final int MIN_CAPACITY = 64;
+
+	/**
+	 * Kernel for scans, vectorized when module jdk.incubator.vector is present.
+	 */
+	private static final VatKernel KERNEL = VatKernel.create();
+
+	/**
+	 * Row columns, {@code rows} rows are used of which {@code dead} are dead.
+	 */
+	private int[] orderIdx = new int[MIN_CAPACITY];
+	private int[] articleIdx = new int[MIN_CAPACITY];
+	private int[] units = new int[MIN_CAPACITY];
+	private long[] unitPrice = new long[MIN_CAPACITY];
+	private byte[] tax = new byte[MIN_CAPACITY];
+
+	/**
+	 * Item of each row, next row of the same order and next row of the same
+	 * article ({@code -1} ends chains).
+	 */
+	private OrderItem[] item = new OrderItem[MIN_CAPACITY];
+	private int[] nextOfOrder = new int[MIN_CAPACITY];
+	private int[] nextOfArticle = new int[MIN_CAPACITY];
+	private int rows = 0;
+	private int dead = 0;
+
+	/**
+	 * Dictionaries of order and article indexes, first row of each order and
+	 * of each article.
+	 */
+	private final Map<Order, Integer> orderIndex = new IdentityHashMap<Order, Integer>();
+	private final Map<Article, Integer> articleIndex = new IdentityHashMap<Article, Integer>();
+	private int[] firstOfOrder = new int[MIN_CAPACITY];
+	private int[] firstOfArticle = new int[MIN_CAPACITY];
+
+
+	/**
+	 * Append row of an item added to an order.
+	 *
+	 * @param order order item was added to.
+	 * @param orderItem added item.
+	 */
+	synchronized void add(Order order, OrderItem orderItem) {
+		final int o = indexOf(order);
+		final Article article = orderItem.getArticle();
+		if(rows == units.length) {
+			grow(rows << 1);
+		}
+		final int r = rows++;
+		final int a = indexOf(article);
+		orderIdx[r] = o;
+		articleIdx[r] = a;
+		units[r] = orderItem.getUnitsOrdered();
+		unitPrice[r] = article.getUnitPrice();
+		tax[r] = (byte)taxOf(article).ordinal();
+		item[r] = orderItem;
+		nextOfOrder[r] = firstOfOrder[o];
+		firstOfOrder[o] = r;
+		nextOfArticle[r] = firstOfArticle[a];
+		firstOfArticle[a] = r;
+	}
+
+
+	/**
+	 * Mark row of an item removed from an order as dead.
+	 *
+	 * @param order order item was removed from.
+	 * @param orderItem removed item.
+	 */
+	synchronized void remove(Order order, OrderItem orderItem) {
+		final int r = rowOf(order, orderItem);
+		if(r >= 0) {
+			final int o = orderIdx[r];	// unlink row from chain of order
+			if(firstOfOrder[o] == r) {
+				firstOfOrder[o] = nextOfOrder[r];
+			} else {
+				int p = firstOfOrder[o];
+				while(nextOfOrder[p] != r) {
+					p = nextOfOrder[p];
+				}
+				nextOfOrder[p] = nextOfOrder[r];
+			}
+			tax[r] = DEAD;
+			units[r] = 0;
+			item[r] = null;
+			if(++dead > MIN_CAPACITY && dead >= rows >>> 1) {
+				compact();
+			}
+		}
+	}
+
+
+	/**
+	 * Update units of the row of an item.
+	 *
+	 * @param order order that contains the item.
+	 * @param orderItem item with changed units.
+	 */
+	synchronized void unitsChanged(Order order, OrderItem orderItem) {
+		final int r = rowOf(order, orderItem);
+		if(r >= 0) {
+			units[r] = orderItem.getUnitsOrdered();
+		}
+	}
+
+
+	/**
+	 * Update unit price and tax ordinal of all rows of an article.
+	 *
+	 * @param article article with changed price or tax rate.
+	 */
+	synchronized void pricingChanged(Article article) {
+		final Integer a = articleIndex.get(article);
+		if(a != null) {
+			final long price = article.getUnitPrice();
+			final byte t = (byte)taxOf(article).ordinal();
+			for(int r = firstOfArticle[a]; r >= 0; r = nextOfArticle[r]) {
+				if(tax[r] != DEAD) {
+					unitPrice[r] = price;
+					tax[r] = t;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Sum gross value and included VAT of live rows by tax ordinal {@code t}:
+	 * {@code sums[3*t]} is gross value, {@code sums[3*t+1]} VAT and
+	 * {@code sums[3*t+2]} the number of rows, VAT is rounded per row as for
+	 * order totals.
+	 *
+	 * @param sums array of at least {@code 3 * TAX.values().length} sums to add to.
+	 * @return sums.
+	 */
+	synchronized long[] sumByTax(long[] sums) {
+		return KERNEL.sumByTax(units, unitPrice, tax, rows, sums);
+	}
+
+
+	/**
+	 * Return number of live rows.
+	 *
+	 * @return number of items mirrored.
+	 */
+	synchronized int size() {
+		return rows - dead;
+	}
+
+
+	/*
+	 * Private methods.
+	 */
+
+	private static TAX taxOf(Article article) {
+		return article.getTax() != null? article.getTax() : TAX.GER_VAT;
+	}
+
+	private int rowOf(Order order, OrderItem orderItem) {
+		final Integer o = orderIndex.get(order);
+		if(o != null) {
+			for(int r = firstOfOrder[o]; r >= 0; r = nextOfOrder[r]) {
+				if(item[r] == orderItem)
+					return r;
+			}
+		}
+		return -1;
+	}
+
+	private int indexOf(Order order) {
+		Integer o = orderIndex.get(order);
+		if(o == null) {
+			o = orderIndex.size();
+			if(o == firstOfOrder.length) {
+				firstOfOrder = Arrays.copyOf(firstOfOrder, o << 1);
+			}
+			firstOfOrder[o] = -1;
+			orderIndex.put(order, o);
+		}
+		return o;
+	}
+
+	private int indexOf(Article article) {
+		Integer a = articleIndex.get(article);
+		if(a == null) {
+			a = articleIndex.size();
+			if(a == firstOfArticle.length) {
+				firstOfArticle = Arrays.copyOf(firstOfArticle, a << 1);
+			}
+			firstOfArticle[a] = -1;
+			articleIndex.put(article, a);
+		}
+		return a;
+	}
+
+	private void grow(int capacity) {
+		orderIdx = Arrays.copyOf(orderIdx, capacity);
+		articleIdx = Arrays.copyOf(articleIdx, capacity);
+		units = Arrays.copyOf(units, capacity);
+		unitPrice = Arrays.copyOf(unitPrice, capacity);
+		tax = Arrays.copyOf(tax, capacity);
+		item = Arrays.copyOf(item, capacity);
+		nextOfOrder = Arrays.copyOf(nextOfOrder, capacity);
+		nextOfArticle = Arrays.copyOf(nextOfArticle, capacity);
+	}
+
+	/**
+	 * Move live rows down over dead rows and rebuild chains of orders and articles.
+	 */
+	private void compact() {
+		Arrays.fill(firstOfOrder, 0, orderIndex.size(), -1);
+		Arrays.fill(firstOfArticle, 0, articleIndex.size(), -1);
+		int w = 0;
+		for(int r=0; r < rows; r++) {
+			if(tax[r] != DEAD) {
+				orderIdx[w] = orderIdx[r];
+				articleIdx[w] = articleIdx[r];
+				units[w] = units[r];
+				unitPrice[w] = unitPrice[r];
+				tax[w] = tax[r];
+				item[w] = item[r];
+				nextOfOrder[w] = firstOfOrder[orderIdx[w]];
+				firstOfOrder[orderIdx[w]] = w;
+				nextOfArticle[w] = firstOfArticle[articleIdx[w]];
+				firstOfArticle[articleIdx[w]] = w;
+				w++;
+			}
+		}
+		Arrays.fill(item, w, rows, null);
+		rows = w;
+		dead = 0;
+	}
+}
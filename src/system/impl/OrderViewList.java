@@ -0,0 +1,55 @@
+package system.impl;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import datamodel.Order;
+import system.DatamodelFactory.OrderView;
+
+
+/**
+ * Unmodifiable list of views of the first {@code size} orders of a list that
+ * only grows, with the items the orders had when an items version was opened.
+ * The list is created in O(1), views are created on access. The version is
+ * closed when the list becomes unreachable.
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class OrderViewList extends AbstractList<OrderView> implements RandomAccess {
+
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	private final List<Order> orders;
+	private final long version;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param orders first orders of a list that only grows.
+	 * @param version open items version, see {@link Order#openItemsVersion()}.
+	 */
+	OrderViewList(List<Order> orders, long version) {
+		this.orders = orders;
+		this.version = version;
+		CLEANER.register(this, () -> Order.closeItemsVersion(version));
+	}
+
+	@Override
+	public OrderView get(int index) {
+		final Order order = orders.get(index);
+		try {
+			return new OrderView(order, order.getItems(version));
+		} finally {
+			Reference.reachabilityFence(this);	// keep version open while resolving items
+		}
+	}
+
+	@Override
+	public int size() { return orders.size(); }
+}
@@ -0,0 +1,51 @@
+package system.impl;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+
+/**
+ * Unmodifiable view of the first {@code size} elements of a list that only
+ * grows, e.g. the internal lists of {@link DatamodelFactoryImpl}. Elements
+ * appended to the backing list later are not part of the view, the view is
+ * taken in O(1) and shares the elements of the backing list.
+ *
+ * @param <E> element type.
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class PrefixList<E> extends AbstractList<E> implements RandomAccess {
+
+	private final List<E> list;
+	private final int size;
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @param list backing list that only grows.
+	 * @param size number of elements in the view.
+	 * @throws IllegalArgumentException when size is negative or exceeds list size.
+	 */
+	PrefixList(List<E> list, int size) {
+		if(size < 0 || size > list.size())
+			throw new IllegalArgumentException("size: " + size + ", list size: " + list.size());
+		//
+		this.list = list;
+		this.size = size;
+	}
+
+	@Override
+	public E get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+		return list.get(index);
+	}
+
+	@Override
+	public int size() { return size; }
+}
@@ -1,10 +1,11 @@
 package system.impl;
 
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import datamodel.Article;
 import datamodel.Customer;
@@ -12,6 +13,7 @@ import datamodel.Order;
 import datamodel.OrderItem;
 import datamodel.TAX;
 import system.Calculator;
+import system.Calculator.TaxAmounts;
 import system.Formatter;
 import system.Printer;
 import system.TablePrinter;
@@ -23,10 +25,17 @@ class PrinterImpl implements Printer {
 	
 	private final Calculator calculator;
 	private final Formatter formatter;
+	private final NameCache names;
 
 	PrinterImpl(Calculator calculator, Formatter formatter) {
 		this.calculator = calculator;
 		this.formatter = formatter;
+		this.names = new NameCache(formatter, NameCache.DEFAULT_CAPACITY);
+	}
+
+	@Override
+	public String nameCacheStats() {
+		return names.toString();
 	}
 	
 	public <T,R> R process(final R collector, final Collection<T> collection,
@@ -51,22 +60,42 @@ class PrinterImpl implements Printer {
 		return new TablePrinterImpl(sb, builder);
 	}
 
+	@Override
+	public TablePrinter createTablePrinter(StringBuilder sb, Consumer<Builder> builder) {
+		return new TablePrinterImpl(sb, builder);
+	}
+
+	@Override
+	public TablePrinter createTablePrinter(Writer out, Consumer<Builder> builder) {
+		return new TablePrinterImpl(out, builder);
+	}
+
 	@Override
 	public StringBuffer printCustomer(StringBuffer sb, Customer c) {
 		if(c==null)
 			return sb;
 		//
-		final StringBuffer contacts = new StringBuffer();
-		IntStream.range(0, c.contactsCount()).forEach(i ->
-			contacts.append(i==0? "" : ", ").append(c.getContacts()[i])
-		);
+		return (sb==null? new StringBuffer() : sb).append(printCustomer(new StringBuilder(), c));
+	}
+
+	@Override
+	public StringBuilder printCustomer(StringBuilder sb, Customer c) {
+		if(c==null)
+			return sb;
 		//
+		final StringBuilder sb_ = sb==null? new StringBuilder() : sb;
+		final long id = c.getIdAsLong();
 		int nameStyle = 0;
-		return (sb==null? new StringBuffer() : sb)
-			.append(String.format("| %6d ", c.getId()))
-			.append(String.format("| %-31s", formatter.fmtName(c.getFirstName(), c.getLastName(), nameStyle)))
-			.append(String.format("| %-44s ", contacts))
-			.append("|\n");
+		int mark = sb_.append("| ").length();
+		pad(id >= 0? sb_.append(id) : sb_.append("null"), mark, 6, true);
+		mark = sb_.append(" | ").length();
+		pad(sb_.append(names.fmtName(c, nameStyle)), mark, 31, false);
+		mark = sb_.append("| ").length();
+		final String[] contacts = c.getContacts();
+		for(int i=0; i < contacts.length; i++) {
+			sb_.append(i==0? "" : ", ").append(contacts[i]);
+		}
+		return pad(sb_, mark, 44, false).append(" |\n");
 	}
 
 	@Override
@@ -74,13 +103,15 @@ class PrinterImpl implements Printer {
 		if(customers==null)
 			return sb;
 		//
-		final StringBuffer sb_ = sb==null? new StringBuffer() : sb;
-//		var cit = customers.iterator();
-//		while(cit.hasNext()) {		// iterate through Customer collection
-//			Customer c = cit.next();
-//			printCustomer(sb, c);		// format each Customer object as line into StringBuffer
-//		}
-//		return sb;
+		return (sb==null? new StringBuffer() : sb).append(printCustomers(new StringBuilder(), customers));
+	}
+
+	@Override
+	public StringBuilder printCustomers(StringBuilder sb, Collection<Customer> customers) {
+		if(customers==null)
+			return sb;
+		//
+		final StringBuilder sb_ = sb==null? new StringBuilder() : sb;
 		return process(sb_, customers, s -> s, c -> printCustomer(sb_, c));	// calling generic print method
 	}
 
@@ -89,12 +120,24 @@ class PrinterImpl implements Printer {
 		if(a==null)
 			return sb;
 		//
-		return (sb==null? new StringBuffer() : sb)
-			.append(String.format("| %10s ", a.getId()))
-			.append(String.format("| %-27s", a.getDescription()))
-			.append(String.format("| %6d ", a.getUnitPrice())).append("\u20ac")	// Unicode for Euro
-			.append(String.format("| %4s MwSt", a.getTax()==TAX.GER_VAT_REDUCED? "7%" : "19%"))
-			.append("|\n");
+		return (sb==null? new StringBuffer() : sb).append(printArticle(new StringBuilder(), a));
+	}
+
+	@Override
+	public StringBuilder printArticle(StringBuilder sb, Article a) {
+		if(a==null)
+			return sb;
+		//
+		final StringBuilder sb_ = sb==null? new StringBuilder() : sb;
+		int mark = sb_.append("| ").length();
+		pad(sb_.append(a.getId()), mark, 10, true);
+		mark = sb_.append(" | ").length();
+		pad(sb_.append(a.getDescription()), mark, 27, false);
+		mark = sb_.append("| ").length();
+		pad(sb_.append(a.getUnitPrice()), mark, 6, true).append(" \u20ac");	// Unicode for Euro
+		mark = sb_.append("| ").length();
+		return pad(sb_.append(a.getTax()==TAX.GER_VAT_REDUCED? "7%" : "19%"), mark, 4, true)
+			.append(" MwSt|\n");
 	}
 
 	@Override
@@ -102,23 +145,40 @@ class PrinterImpl implements Printer {
 		if(articles==null)
 			return sb;
 		//
-		final StringBuffer sb_ = sb==null? new StringBuffer() : sb;
+		return (sb==null? new StringBuffer() : sb).append(printArticles(new StringBuilder(), articles));
+	}
+
+	@Override
+	public StringBuilder printArticles(StringBuilder sb, Collection<Article> articles) {
+		if(articles==null)
+			return sb;
+		//
+		final StringBuilder sb_ = sb==null? new StringBuilder() : sb;
 		return process(sb_, articles, a -> printArticle(sb_, a));
 	}
 
 	@Override
 	public StringBuffer printOrder(StringBuffer sb, Order order) {
+		if(order==null)
+			return sb;
+		//
+		return (sb==null? new StringBuffer() : sb).append(printOrder(new StringBuilder(), order));
+	}
+
+	@Override
+	public StringBuilder printOrder(StringBuilder sb, Order order) {
 		if(order==null)
 			return sb;
 		//
 		final String creationDate = formatter.fmtDate(order.getCreationDate(), 0, "");
 		final Customer c = order.getCustomer();
-		return (sb==null? new StringBuffer() : sb)
-			.append(String.format("| %10s ", order.getId()))
-			.append(String.format("| %-27s", formatter.fmtName(c.getFirstName(), c.getLastName(), 0)))
-			.append(String.format("| %1d items ", order.itemsCount()))
-			.append(String.format("| created: %s ", creationDate))
-			.append("|\n");
+		final StringBuilder sb_ = sb==null? new StringBuilder() : sb;
+		int mark = sb_.append("| ").length();
+		pad(sb_.append(order.getId()), mark, 10, true);
+		mark = sb_.append(" | ").length();
+		pad(sb_.append(names.fmtName(c, 0)), mark, 27, false);
+		return sb_.append("| ").append(order.itemsCount()).append(" items ")
+			.append("| created: ").append(creationDate).append(" |\n");
 	}
 
 	@Override
@@ -126,10 +186,46 @@ class PrinterImpl implements Printer {
 		if(orders==null)
 			return sb;
 		//
-		final StringBuffer sb_ = sb==null? new StringBuffer() : sb;
+		return (sb==null? new StringBuffer() : sb).append(printOrders(new StringBuilder(), orders));
+	}
+
+	@Override
+	public StringBuilder printOrders(StringBuilder sb, Collection<Order> orders) {
+		if(orders==null)
+			return sb;
+		//
+		final StringBuilder sb_ = sb==null? new StringBuilder() : sb;
 		return process(sb_, orders, a -> printOrder(sb_, a));
 	}
 
+	/**
+	 * Pad text appended to sb since position {@code from} with spaces to width,
+	 * like {@code String.format("%Ns")} for right-aligned and {@code "%-Ns"} for
+	 * left-aligned text. Longer text is not cut.
+	 * 
+	 * @param sb StringBuilder with appended text.
+	 * @param from position in sb where text starts.
+	 * @param width minimum width of text.
+	 * @param right true for right-aligned text (spaces inserted before text).
+	 * @return sb
+	 */
+	private static StringBuilder pad(StringBuilder sb, int from, int width, boolean right) {
+		for(int d = width - (sb.length() - from); d > 0; d -= SPACES.length()) {
+			int n = Math.min(d, SPACES.length());
+			if(right) {
+				sb.insert(from, SPACES, 0, n);
+			} else {
+				sb.append(SPACES, 0, n);
+			}
+		}
+		return sb;
+	}
+
+	/**
+	 * Run of spaces used for padding.
+	 */
+	private static final String SPACES = " ".repeat(64);
+
 	@Override
 	public TablePrinter printOrder(TablePrinter orderTable, Order order) {
 		if(orderTable != null && order != null) {
@@ -138,38 +234,29 @@ class PrinterImpl implements Printer {
 			orderTable.row(id, name + "'s Bestellung: ");
 			long totalPrice = 0;
 			long totalMwst = 0;
+			final StringBuilder desc = new StringBuilder(48);	// reused for item descriptions
 			Iterator<OrderItem> a = order.getItems().iterator();
 			while(a.hasNext()) {
 				OrderItem element = a.next();
 				long price = element.getArticle().getUnitPrice(); //price of one article
 				int manyorders = element.getUnitsOrdered(); // how many times it was ordered
-				String nameOfArticle = element.getArticle().getDescription(); //what kind of article
-				String itemPriceStr = formatter.fmtPrice(element.getArticle().getUnitPrice()); //format price in string
-				String sumItemPriceStr = formatter.fmtPrice(manyorders * price, 1); //number of articles * price of article
 				long newnew = manyorders * price; //number of articles * price
 				long orderVAT = calculator.calculateIncludedVAT(newnew, element.getArticle().getTax()); //calculate the tax of the total price
-				String itemVATStr = formatter.fmtPrice(orderVAT); //format long in a string for total tax of each article order
 				totalPrice += newnew;
 				totalMwst += orderVAT;
-				String totaloprico = formatter.fmtPrice(totalPrice, 1);
-				String sumMWT = formatter.fmtPrice(totalMwst, 1);
-				String reducedTaxMarker = "";
-				String finalOne = "";
-				if(manyorders == 1) {
-					finalOne = manyorders + " " + nameOfArticle;
-				}
-				else {
-					finalOne = manyorders + " " + nameOfArticle + ", " + manyorders + "x" + " " + itemPriceStr;
-				}
-				if(element.getArticle().getTax() == TAX.GER_VAT_REDUCED) {
-					reducedTaxMarker = "*";
-				} else {
-					reducedTaxMarker = "";
+				desc.setLength(0);
+				desc.append(" - ").append(manyorders).append(' ').append(element.getArticle().getDescription());
+				if(manyorders != 1) {	// ", 4x 6.49"
+					formatter.fmtPrice(desc.append(", ").append(manyorders).append("x "), price, 0);
 				}
+				String reducedTaxMarker = element.getArticle().getTax() == TAX.GER_VAT_REDUCED? "*" : "";
+				String itemVATStr = formatter.fmtPrice(orderVAT); //format long in a string for total tax of each article order
+				String sumItemPriceStr = formatter.fmtPrice(newnew, 1); //number of articles * price of article
 				if(a.hasNext()) {
-					orderTable.row("", " - " + finalOne , itemVATStr, reducedTaxMarker,  sumItemPriceStr, "" , "" );
-				}else {
-			orderTable.row("", " - " + finalOne , itemVATStr, reducedTaxMarker,  sumItemPriceStr, sumMWT , totaloprico );
+					orderTable.row("", desc.toString(), itemVATStr, reducedTaxMarker, sumItemPriceStr, "", "");
+				} else {	// order totals printed with last item
+					orderTable.row("", desc.toString(), itemVATStr, reducedTaxMarker, sumItemPriceStr,
+						formatter.fmtPrice(totalMwst, 1), formatter.fmtPrice(totalPrice, 1));
 				}
 			}
 		}
@@ -178,31 +265,86 @@ class PrinterImpl implements Printer {
 
 	@Override
 	public TablePrinter printOrders(TablePrinter orderTable, Collection<Order> orders) {
-		long[] totals = {	// tuple with compounded price and VAT tax values over all orders.
-				0L,		// compounded order value stored in first element
-				0L		// compounded order VAT tax stored in second element
-		};
-		Consumer<Order> ff = a->printOrder(orderTable, a).line(); 
-		long totalPricee = 0;
-		long totalMwst = 0;
+		if(orderTable==null || orders==null)
+			return orderTable;
+		//
+		// single pass: capture each order's value once as sort key and compound totals
+		Order[] sorted = new Order[orders.size()];
+		long[] keys = new long[sorted.length];
+		long totalValue = 0L;
+		long totalVAT = 0L;
+		long maxValue = 0L;
+		int n = 0;
 		for(Order order : orders) {
-//			printOrder(orderTable, order).line();
-			for(OrderItem e : order.getItems()) {
-				long price = e.getArticle().getUnitPrice();
-				int manyorders = e.getUnitsOrdered();
-				long newnew = manyorders * price; 
-				totalPricee += newnew;
-				long orderVAT = calculator.calculateIncludedVAT(newnew, e.getArticle().getTax());
-				totalMwst += orderVAT;
-				totals[0] = totalPricee;
-				totals[1] = totalMwst;
+			long value = order.getTotalValue();
+			totalValue += value;
+			totalVAT += order.getTotalVAT();
+			if(n == keys.length) {	// collection grew since size() was taken
+				sorted = Arrays.copyOf(sorted, n * 2 + 1);
+				keys = Arrays.copyOf(keys, n * 2 + 1);
 			}
+			sorted[n] = order;
+			keys[n++] = value;
+			maxValue = Math.max(maxValue, Math.abs(value));
 		}
-		String totalPrice = formatter.fmtPrice(totals[0], 1);
-		String totalVAT = formatter.fmtPrice(totals[1], 1);
-		//return orderTable
-		return process(orderTable, orders, s -> s.sorted((a,b) -> Long.compare(b.bla(), a.bla())),ff)
-			.row( "@ >        |   |", "", "", "", "", "Gesamt:", totalVAT, totalPrice)
+		// stable sort by descending order value on packed (value, index) keys
+		packSortKeys(keys, n, maxValue);
+		Arrays.sort(keys, 0, n);
+		for(int i=0; i < n; i++) {
+			printOrder(orderTable, sorted[(int)(keys[i] & INDEX_MASK)]).line();
+		}
+		return orderTable
+			.row( "@ >        |   |", "", "", "", "", "Gesamt:", formatter.fmtPrice(totalVAT, 1), formatter.fmtPrice(totalValue, 1))
 			.line("@          +=+=+");
 	}
+
+	@Override
+	public TablePrinter printTaxBreakdown(TablePrinter orderTable, Collection<Order> orders) {
+		if(orderTable==null || orders==null)
+			return orderTable;
+		//
+		for(TaxAmounts amounts : calculator.calculateTaxBreakdown(orders).values()) {
+			final int bp = amounts.getTax().getRateBasisPoints();
+			final String rate = bp==0? "steuerfrei" :
+				"MwSt " + (bp % 100==0? Integer.toString(bp / 100) : Double.toString(bp / 100.0)) + "%";
+			orderTable.row("@          |   |", "", "netto, " + rate + ", brutto:", "", "",
+				formatter.fmtPrice(amounts.getNet(), 1), formatter.fmtPrice(amounts.getVAT(), 1),
+				formatter.fmtPrice(amounts.getGross(), 1));
+		}
+		return orderTable.line("@          +-+-+");
+	}
+
+	/**
+	 * Low bits of a packed sort key hold the index of the order, high bits the
+	 * inverted value (or rank of the value) so that ascending keys sort orders
+	 * by descending value and ties by index.
+	 */
+	private static final int INDEX_BITS = 31;
+	private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+	private static final long MAX_PACKED_VALUE = (1L << (63 - INDEX_BITS)) - 1;
+
+	/**
+	 * Replace values by packed sort keys, values that do not fit next to the
+	 * index are replaced by their rank among all values.
+	 */
+	private static void packSortKeys(long[] keys, int n, long maxValue) {
+		if(maxValue <= MAX_PACKED_VALUE / 2) {
+			for(int i=0; i < n; i++) {	// shift value range to positive
+				keys[i] = ((MAX_PACKED_VALUE / 2 - keys[i]) << INDEX_BITS) | i;
+			}
+		} else {
+			long[] values = Arrays.copyOf(keys, n);
+			Arrays.sort(values);
+			int distinct = 0;
+			for(int i=0; i < n; i++) {	// equal values get equal rank
+				if(distinct == 0 || values[distinct - 1] != values[i]) {
+					values[distinct++] = values[i];
+				}
+			}
+			for(int i=0; i < n; i++) {
+				int rank = Arrays.binarySearch(values, 0, distinct, keys[i]);
+				keys[i] = ((long)(distinct - 1 - rank) << INDEX_BITS) | i;
+			}
+		}
+	}
 }
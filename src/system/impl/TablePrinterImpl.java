@@ -1,9 +1,14 @@
 package system.impl;
 
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import system.TablePrinter;
 
@@ -11,7 +16,15 @@ class TablePrinterImpl implements TablePrinter {
 	final List<Column> columns = new ArrayList<Column>();
 	final String rowSpec;	// default row spec:  "| | | |"
 	final String lineSpec;	// default line spec: "+-+-+-+"
-	final StringBuffer sb;
+	final Plan rowPlan;		// compiled default row spec
+	final Plan linePlan;	// compiled default line spec
+	final Map<String, Plan> plans = new HashMap<String, Plan>();	// compiled custom specs
+	final static int MAX_PLANS = 64;	// bound of cached custom specs
+	final StringBuilder sb;	// unsynchronized buffer rows are rendered into
+	final StringBuffer target;	// legacy destination receiving each rendered row, may be null
+	final Writer out;		// streaming destination, null when table is collected in sb
+	char[] flushBuf;		// reused to move buffered rows to out
+	final static int FLUSH_THRESHOLD = 8192;	// buffered chars that trigger a flush to out
 	final static char SPACE = 0x20;
 	final static char NUL = 0x00;
 	final static char L = 'L';
@@ -40,7 +53,29 @@ class TablePrinterImpl implements TablePrinter {
 	}
 
 	TablePrinterImpl(StringBuffer sb, Consumer<Builder> builder) {
-		this.sb = sb==null? new StringBuffer() : sb;
+		this(new StringBuilder(256), sb==null? new StringBuffer() : sb, null, builder);
+	}
+
+	TablePrinterImpl(StringBuilder sb, Consumer<Builder> builder) {
+		this(sb==null? new StringBuilder() : sb, null, null, builder);
+	}
+
+	/**
+	 * Constructor of a streaming table that writes rows to out through a buffer
+	 * of bounded size, memory use does not depend on the size of the table.
+	 */
+	TablePrinterImpl(Writer out, Consumer<Builder> builder) {
+		this(new StringBuilder(FLUSH_THRESHOLD + 256), null, out, builder);
+	}
+
+	/**
+	 * Rows are rendered into the unsynchronized sb. With a target StringBuffer,
+	 * each row is moved to target with a single append.
+	 */
+	private TablePrinterImpl(StringBuilder sb, StringBuffer target, Writer out, Consumer<Builder> builder) {
+		this.sb = sb;
+		this.target = target;
+		this.out = out;
 		builder.accept(new Builder() {
 			@Override
 			public Builder column(String spec, int width) {
@@ -51,60 +86,177 @@ class TablePrinterImpl implements TablePrinter {
 		});
 		this.rowSpec = "| ".repeat(columns.size()) + "|";
 		this.lineSpec = "+-".repeat(columns.size()) + "+";
+		this.rowPlan = new Plan(rowSpec);
+		this.linePlan = new Plan(lineSpec);
 	}
 
 	@Override
-	public TablePrinter line() { return render(lineSpec); }
+	public TablePrinter line() { return render(linePlan, null, 0); }
 
 	@Override
-	public TablePrinter line(String spec) { return render(spec); }
+	public TablePrinter line(String spec) { return render(plan(spec), null, 0); }
 
 	@Override
 	public TablePrinter row(String... args) {
 		int lena = args != null? args.length : -1;
 		String arg0 = lena > 0? args[0] : "";
-		boolean hasSpec = arg0.startsWith("@");	// shift args[] << 1
-		String[] args2 = hasSpec? Arrays.copyOfRange(args, 1, lena) : args;
-		return render(hasSpec? arg0 : rowSpec, args2);
+		boolean hasSpec = arg0.startsWith("@");	// args[0] is spec, columns start at args[1]
+		return render(hasSpec? plan(arg0) : rowPlan, args, hasSpec? 1 : 0);
 	}
 
 	@Override
-	public void print(PrintStream ps) { ps.print(sb); }
+	public void print(PrintStream ps) {
+		if(out != null) {
+			flush();	// streamed rows were written to out
+		} else {
+			ps.print(target != null? target : sb);
+		}
+	}
 
-	private TablePrinter render(String spec, String... args) {
-		int lens = spec != null? spec.length() : -1;
-		int lena = args != null? args.length : -1;
-		spec = lens > 0 && spec.startsWith("@")? spec.substring(1) : spec;
-		// IntStream.range(0, columns.size()).forEach( i -> {
-		for(int i=0; i < columns.size() && i < lens/2; i++) {
-			Column col = columns.get(i);
-			int j = i*2;
-			if(col.lb && j < lens) {
-				sb.append(String.valueOf(spec.charAt(j)));
+	@Override
+	public TablePrinter flush() {
+		if(out != null) {
+			drain();
+			try {
+				out.flush();
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
 			}
-			if(++j < lens || col.fill != SPACE) {
-				String text = i < lena && args[i] != null? args[i] : "";
-				int d = col.width - text.length();
+		}
+		return this;
+	}
+
+	/**
+	 * Move buffered rows to out and clear the buffer.
+	 */
+	private void drain() {
+		int len = sb.length();
+		if(flushBuf == null || flushBuf.length < len) {
+			flushBuf = new char[Math.max(len, FLUSH_THRESHOLD + 256)];
+		}
+		sb.getChars(0, len, flushBuf, 0);
+		sb.setLength(0);
+		try {
+			out.write(flushBuf, 0, len);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Return render plan for a spec, plans of specs passed with {@link #line(String)}
+	 * or {@code row("@...", ...)} are compiled once and cached.
+	 */
+	private Plan plan(String spec) {
+		Plan plan = plans.get(spec);
+		if(plan == null) {
+			plan = new Plan(spec);
+			if(plans.size() < MAX_PLANS) {
+				plans.put(spec, plan);
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * Render one row or line following a compiled plan with args[off + i] for column[i].
+	 * Borders, fills and cells are appended to sb without intermediate Strings.
+	 */
+	private TablePrinter render(Plan plan, String[] args, int off) {
+		int lena = args != null? args.length - off : -1;
+		for(int i=0; i < plan.n; i++) {
+			Column col = plan.cols[i];
+			if(plan.hasLb[i]) {
+				sb.append(plan.lb[i]);
+			}
+			if(plan.cell[i]) {
+				String text = i < lena && args[off + i] != null? args[off + i] : "";
+				int len = text.length();
+				int d = col.width - len;
 				if(d > 0) {	// fill to width from left or right
-					char fc = spec==rowSpec && col.fill != SPACE? col.fill : NUL;
-					fc = fc==NUL && i < lens? spec.charAt(j) : fc;
-					String fill = String.valueOf(fc).repeat(d);
-					boolean left = col.align==ALIGN.L;
-					sb.append(left? text : fill).append(left? fill : text);
+					if(plan.fill[i] == null) {	// spec has no fill character for column
+						throw new StringIndexOutOfBoundsException(plan.fillIndex[i]);
+					}
+					if(col.align==ALIGN.L) {
+						sb.append(text).append(plan.fill[i], 0, d);
+					} else {
+						sb.append(plan.fill[i], 0, d).append(text);
+					}
 				}
 				if(d < 0) {	// cut to width
-					sb.append(col.align==ALIGN.R? text.substring(-d)// cut from left
-						: text.substring(0, text.length() + d));	// cut from right
+					if(col.align==ALIGN.R) {
+						sb.append(text, -d, len);		// cut from left
+					} else {
+						sb.append(text, 0, len + d);	// cut from right
+					}
 				}
 				if(d==0) {
 					sb.append(text);
 				}
 			}
-			if(col.rb && ++j < lens) {
-				sb.append(String.valueOf(spec.charAt(j)));
+			if(plan.hasRb[i]) {
+				sb.append(plan.rb[i]);
 			}
-		};
-		sb.append("\n");
+		}
+		sb.append('\n');
+		if(target != null) {
+			target.append(sb);
+			sb.setLength(0);
+		} else if(out != null && sb.length() >= FLUSH_THRESHOLD) {
+			drain();
+		}
 		return this;
 	}
+
+	/**
+	 * Render plan compiled from a row or line spec such as "+-+-+" or "@ >   |":
+	 * even spec positions are borders between columns, odd positions fill
+	 * characters. A leading "@" is removed from the spec.
+	 */
+	final class Plan {
+		final int n;				// number of rendered columns
+		final Column[] cols;		// rendered columns
+		final boolean[] hasLb, hasRb;
+		final char[] lb, rb;		// left, right border characters
+		final boolean[] cell;		// column has cell content
+		final char[][] fill;		// fill run of column width, null when spec has no fill character
+		final int[] fillIndex;		// spec index of missing fill character
+		//
+		Plan(String spec) {
+			int lens = spec != null? spec.length() : -1;
+			boolean isRowSpec = spec==rowSpec;	// default row spec uses column fill characters
+			spec = lens > 0 && spec.startsWith("@")? spec.substring(1) : spec;
+			this.n = Math.max(0, Math.min(columns.size(), lens/2));
+			this.cols = columns.subList(0, n).toArray(new Column[n]);
+			this.hasLb = new boolean[n];
+			this.hasRb = new boolean[n];
+			this.lb = new char[n];
+			this.rb = new char[n];
+			this.cell = new boolean[n];
+			this.fill = new char[n][];
+			this.fillIndex = new int[n];
+			for(int i=0; i < n; i++) {
+				Column col = cols[i];
+				int j = i*2;
+				if(col.lb && j < lens) {
+					hasLb[i] = true;
+					lb[i] = spec.charAt(j);
+				}
+				if(++j < lens || col.fill != SPACE) {
+					cell[i] = true;
+					char fc = isRowSpec && col.fill != SPACE? col.fill : NUL;
+					if(fc==NUL && j >= spec.length()) {
+						fillIndex[i] = j;	// reported when a cell needs filling
+					} else {
+						fill[i] = new char[Math.max(0, col.width)];
+						Arrays.fill(fill[i], fc==NUL? spec.charAt(j) : fc);
+					}
+				}
+				if(col.rb && ++j < lens) {
+					hasRb[i] = true;
+					rb[i] = spec.charAt(j);
+				}
+			}
+		}
+	}
 }
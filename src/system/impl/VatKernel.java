@@ -0,0 +1,87 @@
+package system.impl;
+
+import datamodel.TAX;
+
+
+/**
+ * Kernel that sums gross value and included VAT of order items held in
+ * the columns of {@link OrderItemColumns}. Results are identical to
+ * {@link TAX#includedVAT(long)} applied to each item.
+ * <p>
+ * {@link #create()} returns a kernel that uses the Vector API when module
+ * {@code jdk.incubator.vector} is present at runtime (e.g. with
+ * {@code java --add-modules jdk.incubator.vector ...}), and a scalar kernel
+ * otherwise.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+interface VatKernel {
+
+	/**
+	 * System property to force the scalar kernel, e.g.
+	 * {@code java -Dse1.bestellsystem.scalar=true ...}.
+	 */
+	static final String SCALAR_PROPERTY = "se1.bestellsystem.scalar";
+
+
+	/**
+	 * Sum gross value, included VAT and number of items {@code 0..rows-1} by
+	 * tax ordinal {@code t} into {@code sums[3*t]}, {@code sums[3*t+1]} and
+	 * {@code sums[3*t+2]}. Dead rows (negative tax ordinal) are skipped.
+	 *
+	 * @param units units ordered by item.
+	 * @param unitPrice unit price by item.
+	 * @param tax tax ordinal by item.
+	 * @param rows number of items.
+	 * @param sums array of at least {@code 3 * TAX.values().length} sums to add to.
+	 * @return sums.
+	 */
+	long[] sumByTax(int[] units, long[] unitPrice, byte[] tax, int rows, long[] sums);
+
+
+	/**
+	 * Create vectorized kernel if available, scalar kernel otherwise.
+	 *
+	 * @return kernel.
+	 */
+	static VatKernel create() {
+		if( ! Boolean.getBoolean(SCALAR_PROPERTY)) {
+			try {	// class links only when module jdk.incubator.vector is readable
+				return (VatKernel)Class.forName("system.impl.VectorVatKernel")
+					.getDeclaredConstructor().newInstance();
+			} catch(ReflectiveOperationException | LinkageError e) { }
+		}
+		return new ScalarVatKernel();
+	}
+
+
+	/**
+	 * Scalar kernel, also used for rows that vectorized kernels leave to scalar code.
+	 */
+	static final class ScalarVatKernel implements VatKernel {
+
+		private static final TAX[] TAXES = TAX.values();
+
+		@Override
+		public long[] sumByTax(int[] units, long[] unitPrice, byte[] tax, int rows, long[] sums) {
+			return sumByTax(units, unitPrice, tax, 0, rows, sums);
+		}
+
+		static long[] sumByTax(int[] units, long[] unitPrice, byte[] tax, int from, int to, long[] sums) {
+			for(int r=from; r < to; r++) {
+				final int t = tax[r];
+				if(t >= 0) {
+					final long g = units[r] * unitPrice[r];
+					final int i = 3 * t;
+					sums[i] += g;
+					sums[i + 1] += TAXES[t].includedVAT(g);
+					sums[i + 2]++;
+				}
+			}
+			return sums;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package system.impl;
+
+import datamodel.TAX;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * {@link VatKernel} using the Vector API of module {@code jdk.incubator.vector}.
+ * Only loaded by {@link VatKernel#create()} when the module is present.
+ * <p>
+ * Included VAT {@code (2 * gross * bp + d) / (2 * d)} with {@code d = 10000 + bp}
+ * is divided in {@code double} lanes and corrected by one in {@code long}
+ * lanes, which is exact as long as the numerator is below 2<sup>53</sup>.
+ * Lanes with negative or larger gross values are computed by the scalar
+ * kernel, results are identical to {@link TAX#includedVAT(long)}.
+ * </p>
+ *
+ * @version <code style=color:green>{@value application.package_info#Version}</code>
+ * @author <code style=color:blue>{@value application.package_info#Author}</code>
+ */
+
+final class VectorVatKernel implements VatKernel {
+
+	private static final VectorSpecies<Long> L = LongVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> I =	// int lanes of same count as long lanes
+		VectorSpecies.of(int.class, VectorShape.forBitSize(L.vectorBitSize() / 2));
+	private static final VectorSpecies<Double> D = L.withLanes(double.class);
+	private static final VectorSpecies<Byte> B = ByteVector.SPECIES_64;
+
+	/**
+	 * Rows per step, tax ordinals are loaded in steps of 8 bytes.
+	 */
+	private static final int STEP = L.length();
+	private static final int LOAD = Math.max(STEP, B.length());
+
+	/**
+	 * Per tax ordinal: twice the rate in basis points, divisor and twice the
+	 * divisor, reciprocal of twice the divisor.
+	 */
+	private static final TAX[] TAXES = TAX.values();
+	private static final long[] BP2 = new long[TAXES.length];
+	private static final long[] DIV = new long[TAXES.length];
+	private static final long[] DIV2 = new long[TAXES.length];
+	private static final double[] INV = new double[TAXES.length];
+
+	/**
+	 * 2^52 and its bits, lowest mantissa bits of {@code x + 2^52} hold the
+	 * rounded value of {@code 0 <= x < 2^52}.
+	 */
+	private static final double MAGIC = 0x1p52;
+	private static final long MAGIC_BITS = Double.doubleToRawLongBits(MAGIC);
+
+	/**
+	 * Largest gross value computed in vector lanes (numerator below 2^53).
+	 */
+	private static final long LIMIT;
+
+	static {
+		long limit = Long.MAX_VALUE;
+		for(TAX tax : TAXES) {
+			final int t = tax.ordinal();
+			final long bp = tax.getRateBasisPoints();
+			BP2[t] = 2L * bp;
+			DIV[t] = 10000L + bp;
+			DIV2[t] = 2L * DIV[t];
+			INV[t] = 1.0 / DIV2[t];
+			if(bp > 0) {
+				limit = Math.min(limit, ((1L << 53) - DIV[t]) / BP2[t]);
+			}
+		}
+		LIMIT = limit;
+	}
+
+
+	/**
+	 * Constructor.
+	 *
+	 * @throws UnsupportedOperationException when the platform has no vectors of
+	 * at least two long lanes or too many tax rates for byte ordinals.
+	 */
+	VectorVatKernel() {
+		if(STEP < 2 || TAXES.length > Byte.MAX_VALUE)
+			throw new UnsupportedOperationException("vector kernel not supported");
+	}
+
+
+	@Override
+	public long[] sumByTax(int[] units, long[] unitPrice, byte[] tax, int rows, long[] sums) {
+		int r = 0;
+		for(; r + LOAD <= rows; r += STEP) {
+			final LongVector t = taxOrdinals(tax, r);
+			final LongVector g = gross(units, unitPrice, r);
+			if(exact(g)) {
+				final LongVector v = includedVAT(g, t);
+				for(int k=0, i=0; k < TAXES.length; k++, i += 3) {
+					final VectorMask<Long> m = t.compare(VectorOperators.EQ, k);
+					if(m.anyTrue()) {
+						sums[i] += g.reduceLanes(VectorOperators.ADD, m);
+						sums[i + 1] += v.reduceLanes(VectorOperators.ADD, m);
+						sums[i + 2] += m.trueCount();
+					}
+				}
+			} else {
+				ScalarVatKernel.sumByTax(units, unitPrice, tax, r, r + STEP, sums);
+			}
+		}
+		return ScalarVatKernel.sumByTax(units, unitPrice, tax, r, rows, sums);
+	}
+
+
+	/*
+	 * Private methods.
+	 */
+
+	private static LongVector taxOrdinals(byte[] tax, int r) {
+		return (LongVector)ByteVector.fromArray(B, tax, r).convertShape(VectorOperators.B2L, L, 0);
+	}
+
+	private static LongVector gross(int[] units, long[] unitPrice, int r) {
+		final LongVector u = (LongVector)IntVector.fromArray(I, units, r).convertShape(VectorOperators.I2L, L, 0);
+		return u.mul(LongVector.fromArray(L, unitPrice, r));
+	}
+
+	private static boolean exact(LongVector g) {
+		return ! g.compare(VectorOperators.LT, 0L).or(g.compare(VectorOperators.GT, LIMIT)).anyTrue();
+	}
+
+	/**
+	 * Included VAT of non-negative gross values below {@code LIMIT}, lanes
+	 * with ordinals of no tax rate use the rate of ordinal 0.
+	 */
+	private static LongVector includedVAT(LongVector g, LongVector t) {
+		LongVector bp2 = LongVector.broadcast(L, BP2[0]);
+		LongVector div = LongVector.broadcast(L, DIV[0]);
+		LongVector div2 = LongVector.broadcast(L, DIV2[0]);
+		DoubleVector inv = DoubleVector.broadcast(D, INV[0]);
+		for(int k=1; k < TAXES.length; k++) {
+			final VectorMask<Long> m = t.compare(VectorOperators.EQ, k);
+			bp2 = bp2.blend(BP2[k], m);
+			div = div.blend(DIV[k], m);
+			div2 = div2.blend(DIV2[k], m);
+			inv = inv.blend(INV[k], m.cast(D));
+		}
+		final LongVector num = g.mul(bp2).add(div);
+		// round quotient to integer by adding 2^52 and reinterpreting the mantissa
+		// bits, which avoids double-to-long conversion that is not intrinsified
+		LongVector q = ((DoubleVector)num.convert(VectorOperators.L2D, 0)).mul(inv).add(MAGIC)
+			.viewAsIntegralLanes().sub(MAGIC_BITS);
+		// quotient is off by at most one, correct with remainder
+		final LongVector rem = num.sub(q.mul(div2));
+		final LongVector one = LongVector.broadcast(L, 1L);
+		q = q.sub(one, rem.compare(VectorOperators.LT, 0L));
+		return q.add(one, rem.compare(VectorOperators.GE, div2));
+	}
+}
@@ -0,0 +1,90 @@
+package datamodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests of running totals of {@link Order} with changing article prices.
+ */
+class OrderTotalsTest {
+
+	private final Customer customer = new Customer("Eric Meyer").setId(1L);
+
+	@Test
+	void totalsFollowPricesOfContainedArticles() {
+		Article tasse = new Article("Tasse", 299).setTax(TAX.GER_VAT);
+		Article buch = new Article("Buch", 1900).setTax(TAX.GER_VAT_REDUCED);
+		Article other = new Article("Kanne", 1999);
+		Order order = new Order(customer).addItem(tasse, 2).addItem(buch, 1);
+		assertEquals(2498L, order.getTotalValue());
+		assertEquals(TAX.GER_VAT.includedVAT(598) + TAX.GER_VAT_REDUCED.includedVAT(1900), order.getTotalVAT());
+		//
+		other.setUnitPrice(999);		// article not in order
+		assertEquals(2498L, order.getTotalValue());
+		//
+		tasse.setUnitPrice(399);
+		assertEquals(2698L, order.getTotalValue());
+		buch.setTax(TAX.GER_VAT);
+		assertEquals(TAX.GER_VAT.includedVAT(798) + TAX.GER_VAT.includedVAT(1900), order.getTotalVAT());
+		//
+		order.deleteItem(0);
+		assertEquals(1900L, order.getTotalValue());
+		order.deleteAllItems();
+		assertEquals(0L, order.getTotalValue());
+		assertEquals(0L, order.getTotalVAT());
+	}
+
+	@Test
+	void changesAfterPriceChangeWithoutRead() {
+		Article x = new Article("X", 100).setTax(TAX.TAXFREE);
+		Article y = new Article("Y", 50).setTax(TAX.TAXFREE);
+		Order order = new Order(customer).addItem(x, 1).addItem(y, 1);
+		x.setUnitPrice(200);
+		order.deleteItem(0);		// item was added at old price
+		assertEquals(50L, order.getTotalValue());
+		//
+		order = new Order(customer).addItem(x, 2).addItem(y, 1);
+		x.setUnitPrice(300);
+		order.getItems().iterator().next().setUnitsOrdered(1);
+		assertEquals(350L, order.getTotalValue());
+		//
+		order = new Order(customer).addItem(x, 1);
+		x.setTax(TAX.GER_VAT);
+		order.addItem(y, 2);
+		order.deleteItem(0);
+		assertEquals(100L, order.getTotalValue());
+		assertEquals(0L, order.getTotalVAT());
+	}
+
+	@Test
+	void readersSeeConsistentValueAndVAT() throws InterruptedException {
+		final Article article = new Article("Tasse", 299).setTax(TAX.GER_VAT);
+		final Order order = new Order(customer).addItem(article, 1);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		Thread reader = new Thread(() -> {
+			for(int i=0; i < 200_000 && failure.get() == null; i++) {
+				long value = order.getTotalValue();
+				long vat = order.getTotalVAT();
+				if(value % 299 != 0 && value % 399 != 0) {
+					failure.set("value " + value);
+				}
+				if(vat > value) {
+					failure.set("vat " + vat + " > value " + value);
+				}
+			}
+		});
+		reader.start();
+		for(int i=0; reader.isAlive(); i++) {
+			article.setUnitPrice(i % 2 == 0? 399 : 299);
+			Thread.yield();
+		}
+		reader.join();
+		assertNull(failure.get());
+		assertEquals(article.getUnitPrice(), order.getTotalValue());
+		assertEquals(TAX.GER_VAT.includedVAT(article.getUnitPrice()), order.getTotalVAT());
+	}
+}
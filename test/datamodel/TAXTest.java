@@ -0,0 +1,87 @@
+package datamodel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+
+/**
+ * Tests of {@link TAX#includedVAT(long)} against a {@link BigDecimal} reference.
+ */
+class TAXTest {
+
+	/**
+	 * Reference: {@code grossValue * rate / (100 + rate)} rounded half-up (away from zero).
+	 */
+	private static long reference(TAX tax, long grossValue) {
+		final int bp = tax.getRateBasisPoints();
+		return BigDecimal.valueOf(grossValue)
+			.multiply(BigDecimal.valueOf(bp))
+			.divide(BigDecimal.valueOf(10000L + bp), 0, RoundingMode.HALF_UP)
+			.longValueExact();
+	}
+
+	private static void assertVAT(TAX tax, long grossValue) {
+		assertEquals(reference(tax, grossValue), tax.includedVAT(grossValue), () -> tax + ", gross: " + grossValue);
+	}
+
+	@ParameterizedTest
+	@EnumSource(TAX.class)
+	void smallValuesAndZero(TAX tax) {
+		for(long gross = -100_000; gross <= 100_000; gross++) {
+			assertVAT(tax, gross);
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(TAX.class)
+	void roundingBoundaries(TAX tax) {
+		final long bp = tax.getRateBasisPoints();
+		final long divisor = 10000L + bp;
+		int found = 0;
+		for(long gross = 1; gross < 10_000_000 && found < 1000; gross++) {
+			long twice = 2 * ((gross * bp) % divisor);
+			if(Math.abs(twice - divisor) <= divisor / 100) {	// VAT within 0.005 cent of x.5 cent
+				found++;
+				for(long g = gross - 1; g <= gross + 1; g++) {
+					assertVAT(tax, g);
+					assertVAT(tax, -g);
+				}
+			}
+		}
+		assertTrue(bp == 0 || found > 0, "no value near x.5 cent found for " + tax);
+	}
+
+	@ParameterizedTest
+	@EnumSource(TAX.class)
+	void largestValues(TAX tax) {
+		final long[] values = {
+			Long.MAX_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE, Long.MIN_VALUE + 1,
+			Long.MAX_VALUE / 2, Long.MIN_VALUE / 2,
+		};
+		for(long gross : values) {
+			assertVAT(tax, gross);
+		}
+		final long bp = Math.max(1, tax.getRateBasisPoints());
+		final long limit = (Long.MAX_VALUE - (10000L + bp)) / (2L * bp);	// around the long fast path limit
+		for(long gross = limit - 1000; gross <= limit + 1000; gross++) {
+			assertVAT(tax, gross);
+			assertVAT(tax, -gross);
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(TAX.class)
+	void randomValues(TAX tax) {
+		final Random random = new Random(tax.ordinal());
+		for(int i=0; i < 100_000; i++) {
+			long gross = random.nextLong() >> random.nextInt(64);
+			assertVAT(tax, gross);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package system.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests of {@link AppendOnlyList} with chunks of growing size and concurrent appends.
+ */
+class AppendOnlyListTest {
+
+	@Test
+	void appendsAcrossChunks() {
+		AppendOnlyList<Integer> list = new AppendOnlyList<Integer>(2);
+		for(int i=0; i < 10_000; i++) {
+			list.add(i);
+			assertEquals(i + 1, list.size());
+		}
+		for(int i=0; i < 10_000; i++) {
+			assertEquals(i, list.get(i));
+		}
+		int i = 0;
+		for(Integer e : list) {
+			assertEquals(i++, e);
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> list.get(10_000));
+		assertThrows(NullPointerException.class, () -> list.add(null));
+		assertThrows(IllegalArgumentException.class, () -> new AppendOnlyList<Integer>(3));
+	}
+
+	@Test
+	void concurrentAppendsArePublishedWithoutGaps() throws InterruptedException {
+		final int threads = 4, n = 50_000;
+		final AppendOnlyList<Integer> list = new AppendOnlyList<Integer>(1);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> writers = new ArrayList<Thread>();
+		for(int t=0; t < threads; t++) {
+			final int base = t * n;
+			Thread w = new Thread(() -> {
+				try {
+					start.await();
+				} catch(InterruptedException e) {
+					return;
+				}
+				for(int i=0; i < n; i++) {
+					list.add(base + i);
+				}
+			});
+			w.start();
+			writers.add(w);
+		}
+		start.countDown();
+		while(writers.stream().anyMatch(Thread::isAlive)) {
+			int size = list.size();		// readers see no gaps below size
+			for(int i = Math.max(0, size - 100); i < size; i++) {
+				assertNotNull(list.get(i));
+			}
+		}
+		for(Thread w : writers) {
+			w.join();
+		}
+		assertEquals(threads * n, list.size());
+		boolean[] seen = new boolean[threads * n];
+		int[] last = new int[threads];
+		java.util.Arrays.fill(last, -1);
+		for(Integer e : list) {
+			assertFalse(seen[e], "duplicate " + e);
+			seen[e] = true;
+			assertTrue(e % n > last[e / n], "order of one writer");	// appends of one thread keep their order
+			last[e / n] = e % n;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package system.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import system.DatamodelJournal.Fsync;
+
+
+/**
+ * Tests of item removal records and checkpoint failures of {@link DatamodelJournalImpl}.
+ */
+class DatamodelJournalImplTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void itemRemovalsAreDeltaRecords() throws IOException {
+		final Path file = dir.resolve("orders.journal");
+		final DatamodelFactoryImpl factory = new DatamodelFactoryImpl();
+		final DatamodelJournalImpl journal = new DatamodelJournalImpl(file, Fsync.NEVER, 0L);
+		journal.recover(factory);
+		final Customer customer = factory.createCustomer("Eric Meyer").setId(1L);
+		final Article[] articles = new Article[5];
+		for(int i=0; i < articles.length; i++) {
+			articles[i] = factory.createArticle("A" + i, 100 + i).setId("A" + i);
+		}
+		final Order first = factory.createOrder(customer).setId("O1");
+		final Order second = factory.createOrder(customer).setId("O2");
+		for(Article article : articles) {
+			first.addItem(article, 2);
+			second.addItem(article, 3);
+		}
+		long records = journal.getRecordCount();
+		first.deleteItem(2);
+		assertEquals(records + 1, journal.getRecordCount());
+		second.deleteAllItems();
+		assertEquals(records + 2, journal.getRecordCount(), "one record for all removed items");
+		second.addItem(articles[4], 7);
+		first.getItems().iterator().next().setUnitsOrdered(9);
+		journal.close();
+		//
+		final DatamodelFactoryImpl recovered = new DatamodelFactoryImpl();
+		final DatamodelJournalImpl replayed = new DatamodelJournalImpl(file, Fsync.NEVER, 0L);
+		replayed.recover(recovered);
+		replayed.close();
+		assertEquals(items(first), items(recovered.findOrderById("O1").get()));
+		assertEquals(items(second), items(recovered.findOrderById("O2").get()));
+		assertEquals(first.getTotalValue(), recovered.findOrderById("O1").get().getTotalValue());
+	}
+
+	@Test
+	void backgroundCheckpointFailureIsThrownByClose() throws IOException, InterruptedException {
+		final Path file = dir.resolve("orders.journal");
+		final DatamodelFactoryImpl factory = new DatamodelFactoryImpl();
+		final DatamodelJournalImpl journal = new DatamodelJournalImpl(file, Fsync.ALWAYS, 1L);
+		journal.recover(factory);
+		Files.createDirectory(journal.getCheckpointFile());	// checkpoint cannot be read or written
+		factory.createCustomer("Eric Meyer").setId(1L);
+		final Path sealed = file.resolveSibling(file.getFileName() + ".sealed");
+		for(int i=0; i < 1000 && ! Files.exists(sealed); i++) {	// background checkpoint sealed, then fails
+			Thread.sleep(10);
+		}
+		assertTrue(Files.exists(sealed));
+		final IOException e = assertThrows(IOException.class, journal::close);
+		assertTrue(e.getMessage().startsWith("checkpoint of journal"), e.getMessage());
+		assertEquals(0L, journal.getCheckpointCount());
+	}
+
+	private static String items(Order order) {
+		final StringBuilder sb = new StringBuilder();
+		for(OrderItem item : order.getItems()) {
+			sb.append(item.getArticle().getId()).append('x').append(item.getUnitsOrdered()).append(';');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,70 @@
+package system.impl;
+
+import java.util.concurrent.CountDownLatch;
+
+import datamodel.Customer;
+
+
+/**
+ * Contention benchmark of the concurrent {@link DatamodelFactoryImpl}: threads
+ * create customers and orders, throughput is reported per thread count.
+ * <p>
+ * Run with {@code java system.impl.FactoryContentionBenchmark [orders per thread]}.
+ * </p>
+ * <p>
+ * Measured on JDK 17 with one CPU and 500,000 orders per thread, two runs:
+ * </p>
+ * <pre>
+ * threads  1: 343,133 / 300,937 orders/s
+ * threads  2: 265,480 / 225,228 orders/s
+ * threads  4: 222,151 / 223,466 orders/s
+ * </pre>
+ * <p>
+ * With one CPU, more threads cannot scale. The drop comes from context
+ * switches and from appenders of {@link AppendOnlyList} that yield while a
+ * preempted thread holds a lower slot that it has claimed but not stored.
+ * Scaling has to be measured on several cores.
+ * </p>
+ */
+public class FactoryContentionBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		final int n = args.length > 0? Integer.parseInt(args[0]) : 500_000;
+		final int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("cores: " + cores + ", orders per thread: " + n);
+		for(int round=0; round < 2; round++) {	// first round warms up
+			for(int threads = 1; threads <= Math.max(4, 2 * cores); threads *= 2) {
+				final DatamodelFactoryImpl factory = new DatamodelFactoryImpl(true);
+				final CountDownLatch start = new CountDownLatch(1);
+				final Thread[] workers = new Thread[threads];
+				for(int t=0; t < threads; t++) {
+					final long base = 1_000_000L * (t + 1);
+					workers[t] = new Thread(() -> {
+						try {
+							start.await();
+						} catch(InterruptedException e) {
+							return;
+						}
+						Customer c = null;
+						for(int i=0; i < n; i++) {
+							if(i % 4 == 0) {
+								c = factory.createCustomer("Eric Meyer").setId(base + i);
+							}
+							factory.createOrder(c).setId("O" + base + "-" + i);
+						}
+					});
+					workers[t].start();
+				}
+				final long t0 = System.nanoTime();
+				start.countDown();
+				for(Thread w : workers) {
+					w.join();
+				}
+				final double secs = (System.nanoTime() - t0) / 1e9;
+				if(round > 0) {
+					System.out.printf("threads %2d: %,.0f orders/s%n", threads, threads * (double)n / secs);
+				}
+			}
+		}
+	}
+}
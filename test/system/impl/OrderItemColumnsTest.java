@@ -0,0 +1,87 @@
+package system.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import datamodel.TAX;
+
+
+/**
+ * Tests that {@link OrderItemColumns} of a factory stays in sync with orders.
+ */
+class OrderItemColumnsTest {
+
+	private static final TAX[] TAXES = TAX.values();
+
+	@Test
+	void mirrorIsOptIn() {
+		assertNull(new DatamodelFactoryImpl(false).itemColumns());
+		assertNotNull(new DatamodelFactoryImpl(false, true).itemColumns());
+	}
+
+	@Test
+	void sumsMatchItemsAfterRandomChanges() {
+		final DatamodelFactoryImpl factory = new DatamodelFactoryImpl(false, true);
+		final Random random = new Random(42);
+		final Customer customer = factory.createCustomer("Eric Meyer").setId(1L);
+		final Article[] articles = new Article[20];
+		for(int i=0; i < articles.length; i++) {
+			articles[i] = factory.createArticle("A" + i, 100 + i).setTax(TAXES[i % TAXES.length]);
+		}
+		for(int step=0; step < 20_000; step++) {
+			final List<Order> orders = factory.getOrders();
+			switch(random.nextInt(6)) {
+			case 0:
+				factory.createOrder(customer).addItem(articles[random.nextInt(articles.length)], 1 + random.nextInt(5));
+				break;
+			case 1:
+			case 2:
+				if(! orders.isEmpty()) {
+					orders.get(random.nextInt(orders.size())).addItem(articles[random.nextInt(articles.length)], 1 + random.nextInt(5));
+				}
+				break;
+			case 3:
+				if(! orders.isEmpty()) {
+					Order order = orders.get(random.nextInt(orders.size()));
+					order.deleteItem(random.nextInt(order.itemsCount() + 1));
+				}
+				break;
+			case 4:
+				Article article = articles[random.nextInt(articles.length)];
+				if(random.nextBoolean()) {
+					article.setUnitPrice(1 + random.nextInt(10_000));
+				} else {
+					article.setTax(TAXES[random.nextInt(TAXES.length)]);
+				}
+				break;
+			case 5:
+				if(! orders.isEmpty() && random.nextInt(20) == 0) {
+					orders.get(random.nextInt(orders.size())).deleteAllItems();
+				}
+				break;
+			}
+		}
+		final long[] expected = new long[3 * TAXES.length];
+		int items = 0;
+		for(Order order : factory.getOrders()) {
+			for(OrderItem item : order.getItems()) {
+				final TAX tax = item.getArticle().getTax();
+				final long gross = item.getUnitsOrdered() * item.getArticle().getUnitPrice();
+				expected[3 * tax.ordinal()] += gross;
+				expected[3 * tax.ordinal() + 1] += tax.includedVAT(gross);
+				expected[3 * tax.ordinal() + 2]++;
+				items++;
+			}
+		}
+		assertEquals(items, factory.itemColumns().size());
+		assertArrayEquals(expected, factory.itemColumns().sumByTax(new long[3 * TAXES.length]));
+	}
+}
@@ -0,0 +1,135 @@
+package system.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import datamodel.Article;
+import datamodel.Customer;
+import datamodel.Order;
+import datamodel.OrderItem;
+import system.DatamodelFactory.OrderView;
+import system.DatamodelFactory.Snapshot;
+import system.Printer;
+
+
+/**
+ * Tests of {@link DatamodelFactoryImpl#snapshot()} with a concurrent writer.
+ */
+class SnapshotTest {
+
+	@Test
+	void snapshotFreezesItemsOfOrders() {
+		final DatamodelFactoryImpl factory = new DatamodelFactoryImpl(true);
+		final Customer customer = factory.createCustomer("Eric Meyer").setId(1L);
+		final Article article = factory.createArticle("Tasse", 299).setId("SKU-458362");
+		final Order order = factory.createOrder(customer).setId("8592356245").addItem(article, 2);
+		final Snapshot snapshot = factory.snapshot();
+		order.addItem(article, 3);
+		order.deleteItem(0);
+		factory.createOrder(customer);
+		//
+		assertEquals(1, snapshot.getOrders().size());
+		final OrderView view = snapshot.getOrders().get(0);
+		assertSame(order, view.getOrder());
+		assertEquals("8592356245", view.getId());
+		assertEquals(1, view.getItems().size());
+		assertEquals(2, view.getItems().iterator().next().getUnitsOrdered());
+		assertEquals(598L, view.getTotalValue());
+		assertEquals(897L, order.getTotalValue());
+		assertThrows(UnsupportedOperationException.class, () -> view.getItems().clear());
+		assertEquals(3, factory.snapshot().getOrders().get(0).getItems().get(0).getUnitsOrdered());
+	}
+
+	@Test
+	void itemsVersionsOfOrder() {
+		final Customer customer = new Customer("Eric Meyer").setId(1L);
+		final Article article = new Article("Tasse", 299);
+		final Order order = new Order(customer).addItem(article, 1);
+		final long first = Order.openItemsVersion();
+		order.addItem(article, 2);
+		order.addItem(article, 3);
+		final long second = Order.openItemsVersion();
+		order.deleteAllItems();
+		order.addItem(article, 4);
+		try {
+			assertEquals(1, order.getItems(first).size());
+			assertEquals(3, order.getItems(second).size());
+			assertEquals(3, order.getItems(second).get(2).getUnitsOrdered());
+			assertEquals(4, order.getItems(Long.MAX_VALUE).get(0).getUnitsOrdered());
+		} finally {
+			Order.closeItemsVersion(first);
+			Order.closeItemsVersion(second);
+		}
+	}
+
+	@Test
+	void snapshotReaderWithConcurrentWriter() throws InterruptedException {
+		final DatamodelFactoryImpl factory = new DatamodelFactoryImpl(true);
+		final Printer printer = new PrinterImpl(new CalculatorImpl(factory), new FormatterImpl());
+		final Customer customer = factory.createCustomer("Eric Meyer").setId(1L);
+		final Article[] articles = {
+			factory.createArticle("Tasse", 299).setId("A1"),
+			factory.createArticle("Buch", 1900).setId("A2"),
+		};
+		final AtomicBoolean done = new AtomicBoolean();
+		final List<Throwable> failures = new ArrayList<Throwable>();
+		final Thread writer = new Thread(() -> {
+			try {
+				for(int i=0; i < 20_000 && ! done.get(); i++) {
+					final Order order = factory.createOrder(customer).setId("O" + i);
+					for(int k=0; k < 4; k++) {
+						order.addItem(articles[k % 2], 1 + k);
+					}
+					final List<Order> orders = factory.getOrders();
+					final Order other = orders.get(i / 2);
+					if(i % 3 == 0) {
+						other.deleteItem(0);
+					} else if(i % 7 == 0) {
+						other.deleteAllItems();
+					} else {
+						other.addItem(articles[i % 2], 1);
+					}
+				}
+			} catch(Throwable t) {
+				synchronized(failures) {
+					failures.add(t);
+				}
+			}
+		});
+		writer.start();
+		try {
+			for(int round=0; round < 20 || (round < 100 && writer.isAlive()); round++) {
+				final Snapshot snapshot = factory.snapshot();
+				final List<OrderView> orders = snapshot.getOrders();
+				final int[] counts = new int[orders.size()];
+				final long[] values = new long[orders.size()];
+				for(int i=0; i < orders.size(); i++) {
+					counts[i] = orders.get(i).getItems().size();
+					values[i] = orders.get(i).getTotalValue();
+				}
+				printer.printOrders(new StringBuilder(), factory.getOrders());	// live orders meanwhile
+				for(int i=0; i < orders.size(); i++) {	// items and values do not change after the snapshot
+					final OrderView order = orders.get(i);
+					int n = 0;
+					long value = 0L;
+					for(OrderItem item : order.getItems()) {
+						n++;
+						value += item.getUnitsOrdered() * item.getArticle().getUnitPrice();
+					}
+					assertEquals(counts[i], n);
+					assertEquals(values[i], value);
+					assertEquals(values[i], order.getTotalValue());
+				}
+			}
+		} finally {
+			done.set(true);
+			writer.join();
+		}
+		assertEquals(List.of(), failures);
+	}
+}
@@ -0,0 +1,115 @@
+package system.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import datamodel.TAX;
+import system.impl.VatKernel.ScalarVatKernel;
+
+
+/**
+ * Tests that the vectorized {@link VatKernel} sums the same as the scalar kernel.
+ */
+class VatKernelTest {
+
+	private static final TAX[] TAXES = TAX.values();
+
+	/**
+	 * Largest gross value the vector kernel computes in vector lanes, same as
+	 * its {@code LIMIT}.
+	 */
+	private static final long LIMIT;
+
+	static {
+		long limit = Long.MAX_VALUE;
+		for(TAX tax : TAXES) {
+			final long bp = tax.getRateBasisPoints();
+			if(bp > 0) {
+				limit = Math.min(limit, ((1L << 53) - 10000L - bp) / (2L * bp));
+			}
+		}
+		LIMIT = limit;
+	}
+
+
+	@Test
+	void vectorMatchesScalarOnRandomRows() {
+		final VatKernel vector = vectorKernel();
+		final Random random = new Random(42);
+		for(int round=0; round < 200; round++) {
+			final int rows = random.nextInt(300);	// tails of any length
+			final int[] units = new int[rows];
+			final long[] unitPrice = new long[rows];
+			final byte[] tax = new byte[rows];
+			for(int r=0; r < rows; r++) {
+				units[r] = 1 + random.nextInt(10);
+				unitPrice[r] = random.nextInt(100_000);
+				tax[r] = (byte)random.nextInt(TAXES.length);
+				switch(random.nextInt(round % 4 == 0? 1000 : 20)) {	// some rounds all in vector lanes
+				case 0:		// around the limit of exact vector lanes
+					units[r] = 1;
+					unitPrice[r] = LIMIT - 4 + random.nextInt(9);
+					break;
+				case 1:		// far beyond the limit
+					units[r] = random.nextInt(1000);
+					unitPrice[r] = random.nextLong() >>> 14;
+					break;
+				case 2:		// negative gross values
+					units[r] = -units[r];
+					break;
+				case 3:
+					unitPrice[r] = -unitPrice[r] - random.nextInt(1000) * LIMIT / 1000;
+					break;
+				case 4:		// dead row
+					tax[r] = -1;
+					break;
+				}
+			}
+			final long[] expected = new ScalarVatKernel().sumByTax(units, unitPrice, tax, rows, new long[3 * TAXES.length]);
+			final long[] actual = vector.sumByTax(units, unitPrice, tax, rows, new long[3 * TAXES.length]);
+			assertArrayEquals(expected, actual, "round " + round + ", rows " + rows);
+		}
+	}
+
+	@Test
+	void vectorMatchesIncludedVATAroundLimit() {
+		final VatKernel vector = vectorKernel();
+		final int rows = 64;
+		final int[] units = new int[rows];
+		final long[] unitPrice = new long[rows];
+		final byte[] tax = new byte[rows];
+		for(TAX t : TAXES) {
+			for(long d=-rows/2; d < rows/2; d++) {
+				final int r = (int)(d + rows/2);
+				units[r] = 1;
+				unitPrice[r] = LIMIT + d;
+				tax[r] = (byte)t.ordinal();
+			}
+			final long[] sums = vector.sumByTax(units, unitPrice, tax, rows, new long[3 * TAXES.length]);
+			long vat = 0L;
+			for(long price : unitPrice) {
+				vat += t.includedVAT(price);
+			}
+			final int i = 3 * t.ordinal();
+			assertEquals(vat, sums[i + 1], t.name());
+			assertEquals(rows, sums[i + 2], t.name());
+		}
+	}
+
+
+	/**
+	 * Return vector kernel, skips the test when the platform or runtime has none.
+	 */
+	private static VatKernel vectorKernel() {
+		try {	// class links only when module jdk.incubator.vector is readable
+			return (VatKernel)Class.forName("system.impl.VectorVatKernel").getDeclaredConstructor().newInstance();
+		} catch(ReflectiveOperationException | LinkageError e) {
+			assumeTrue(false, "vector kernel not available: " + e);
+			return null;
+		}
+	}
+}